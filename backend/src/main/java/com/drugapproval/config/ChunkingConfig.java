@@ -0,0 +1,45 @@
+package com.drugapproval.config;
+
+import com.drugapproval.util.FixedWindowChunker;
+import com.drugapproval.util.SentenceChunker;
+import com.drugapproval.util.TextChunker;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 청크 분할 엔진 설정
+ */
+@Configuration
+public class ChunkingConfig {
+
+    @Value("${app.chunking.strategy:sentence}")
+    private String strategy;
+
+    @Value("${app.chunking.max-tokens:400}")
+    private int maxTokens;
+
+    @Value("${app.chunking.overlap-tokens:40}")
+    private int overlapTokens;
+
+    @Value("${app.chunking.min-tokens:80}")
+    private int minTokens;
+
+    @Value("${app.chunking.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${app.chunking.chunk-overlap:200}")
+    private int chunkOverlap;
+
+    /**
+     * sentence: 문장/문단 경계 + 토큰 예산, fixed: 고정 문자 수 창
+     */
+    @Bean
+    public TextChunker textChunker() {
+        return switch (strategy.toLowerCase()) {
+            case "sentence" -> new SentenceChunker(maxTokens, overlapTokens, minTokens);
+            case "fixed" -> new FixedWindowChunker(chunkSize, chunkOverlap);
+            default -> throw new IllegalArgumentException("Unknown chunking strategy: " + strategy);
+        };
+    }
+}
@@ -0,0 +1,62 @@
+package com.drugapproval.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 문서 수집(ingestion) 작업 큐 설정
+ */
+@Configuration
+public class IngestionConfig {
+
+    @Value("${app.ingestion.worker-count:2}")
+    private int workerCount;
+
+    @Value("${app.ingestion.queue-capacity:50}")
+    private int queueCapacity;
+
+    @Value("${app.pdf.parallelism:4}")
+    private int pdfParallelism;
+
+    /**
+     * 고정 크기 워커 풀 + 유한 작업 큐 (큐가 가득 차면 TaskRejectedException)
+     */
+    @Bean(name = "ingestionExecutor")
+    public ThreadPoolTaskExecutor ingestionExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workerCount);
+        executor.setMaxPoolSize(workerCount);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("ingestion-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        return executor;
+    }
+
+    /**
+     * 스트리밍 파이프라인의 청크 저장 단계 전용 풀 (수집 워커당 저장 스레드 하나)
+     */
+    @Bean(name = "chunkStoreExecutor")
+    public ThreadPoolTaskExecutor chunkStoreExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workerCount);
+        executor.setMaxPoolSize(workerCount);
+        executor.setQueueCapacity(workerCount);
+        executor.setThreadNamePrefix("chunk-store-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        return executor;
+    }
+
+    /**
+     * PDF 페이지 구간 병렬 추출용 풀 (모든 수집 워커가 공유하여 전체 추출 스레드 수를 제한)
+     */
+    @Bean(name = "pdfExtractionPool", destroyMethod = "shutdown")
+    public ForkJoinPool pdfExtractionPool() {
+        return new ForkJoinPool(Math.max(1, pdfParallelism));
+    }
+}
@@ -6,6 +6,7 @@ import org.opensearch.client.json.jackson.JacksonJsonpMapper;
 import org.opensearch.client.opensearch.OpenSearchClient;
 import org.opensearch.client.transport.rest_client.RestClientTransport;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -13,6 +14,7 @@ import org.springframework.context.annotation.Configuration;
  * OpenSearch 클라이언트 설정
  */
 @Configuration
+@ConditionalOnProperty(name = "app.keyword-index.type", havingValue = "opensearch", matchIfMissing = true)
 public class OpenSearchConfig {
 
     @Value("${app.opensearch.url}")
@@ -0,0 +1,29 @@
+package com.drugapproval.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * 질의응답 처리 설정
+ */
+@Configuration
+public class QueryConfig {
+
+    @Value("${app.query.io-threads:16}")
+    private int ioThreads;
+
+    @Value("${app.query.io-queue-capacity:1000}")
+    private int ioQueueCapacity;
+
+    /**
+     * 질의 경로의 블로킹 작업(키워드 검색, 캐시 조회, 이력 저장) 전용 스케줄러
+     * (Tomcat 요청 스레드나 다른 작업과 스레드를 공유하지 않음)
+     */
+    @Bean(name = "queryIoScheduler", destroyMethod = "dispose")
+    public Scheduler queryIoScheduler() {
+        return Schedulers.newBoundedElastic(ioThreads, ioQueueCapacity, "query-io");
+    }
+}
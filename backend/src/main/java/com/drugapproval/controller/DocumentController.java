@@ -1,13 +1,16 @@
 package com.drugapproval.controller;
 
 import com.drugapproval.dto.DocumentDto;
+import com.drugapproval.dto.PageTextDto;
 import com.drugapproval.service.DocumentService;
+import com.drugapproval.util.FileDownloadHandler;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -15,6 +18,8 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 /**
  * 문서 관리 컨트롤러
@@ -25,7 +30,10 @@ import java.io.File;
 @RequiredArgsConstructor
 public class DocumentController {
 
+    private static final int PAGE_TEXT_RETRY_AFTER_SECONDS = 2;
+
     private final DocumentService documentService;
+    private final FileDownloadHandler fileDownloadHandler;
 
     /**
      * 문서 업로드
@@ -72,17 +80,58 @@ public class DocumentController {
     }
 
     /**
-     * 문서 다운로드
+     * 페이지 텍스트 조회 (수집 시 저장한 추출 텍스트, 페이지 번호는 1부터)
+     * 페이지 텍스트를 아직 준비 중이면 202 + Retry-After
+     */
+    @GetMapping("/{id}/pages/{pageNumber}/text")
+    public ResponseEntity<PageTextDto> getPageText(@PathVariable Long id, @PathVariable int pageNumber) {
+        return documentService.getPageText(id, pageNumber)
+            .map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.accepted()
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(PAGE_TEXT_RETRY_AFTER_SECONDS))
+                .build());
+    }
+
+    /**
+     * 문서 다운로드 (Range, ETag/조건부 요청 지원)
+     * inline=true이면 브라우저 PDF 뷰어에서 바로 열 수 있도록 inline으로 응답
+     */
+    @RequestMapping(value = "/{id}/download", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void downloadDocument(
+        @PathVariable Long id,
+        @RequestParam(value = "inline", defaultValue = "false") boolean inline,
+        HttpServletRequest request,
+        HttpServletResponse response
+    ) throws IOException {
+        DocumentDto document = documentService.getDocument(id);
+        File file = new File(document.getFilePath());
+
+        ContentDisposition disposition = (inline ? ContentDisposition.inline() : ContentDisposition.attachment())
+            .filename(file.getName(), StandardCharsets.UTF_8)
+            .build();
+
+        fileDownloadHandler.serve(file, buildETag(document, file), MediaType.APPLICATION_PDF_VALUE,
+            disposition.toString(), request, response);
+    }
+
+    /**
+     * 강한 ETag: 내용 해시가 있으면 해시, 없으면 파일 크기와 수정 시각
+     */
+    private String buildETag(DocumentDto document, File file) {
+        if (document.getContentHash() != null) {
+            return "\"" + document.getContentHash() + "\"";
+        }
+        return "\"" + Long.toHexString(file.length()) + "-" + Long.toHexString(file.lastModified()) + "\"";
+    }
+
+    /**
+     * 실패한 문서 재처리
      */
-    @GetMapping("/{id}/download")
-    public ResponseEntity<Resource> downloadDocument(@PathVariable Long id) {
-        File file = documentService.getDocumentFile(id);
-        Resource resource = new FileSystemResource(file);
-
-        return ResponseEntity.ok()
-            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getName() + "\"")
-            .contentType(MediaType.APPLICATION_PDF)
-            .body(resource);
+    @PostMapping("/{id}/retry")
+    public ResponseEntity<DocumentDto> retryDocument(@PathVariable Long id) {
+        log.info("Retrying document: {}", id);
+        DocumentDto document = documentService.retryDocument(id);
+        return ResponseEntity.accepted().body(document);
     }
 
     /**
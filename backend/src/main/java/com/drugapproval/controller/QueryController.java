@@ -1,16 +1,23 @@
 package com.drugapproval.controller;
 
+import com.drugapproval.dto.BatchQueryRequest;
+import com.drugapproval.dto.BatchQueryStatus;
 import com.drugapproval.dto.QueryRequest;
 import com.drugapproval.dto.QueryResponse;
 import com.drugapproval.entity.QueryHistory;
+import com.drugapproval.service.BatchQueryService;
 import com.drugapproval.service.QueryService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * 질의응답 컨트롤러
@@ -22,15 +29,51 @@ import org.springframework.web.bind.annotation.*;
 public class QueryController {
 
     private final QueryService queryService;
+    private final BatchQueryService batchQueryService;
 
     /**
-     * 질문 처리
+     * 질문 처리 (비동기 응답: 검색/생성 동안 요청 스레드를 점유하지 않음)
      */
     @PostMapping
-    public ResponseEntity<QueryResponse> processQuery(@Valid @RequestBody QueryRequest request) {
+    public Mono<ResponseEntity<QueryResponse>> processQuery(@Valid @RequestBody QueryRequest request) {
         log.info("Processing query from user: {}", request.getUserName());
-        QueryResponse response = queryService.processQuery(request);
-        return ResponseEntity.ok(response);
+        return queryService.processQuery(request).map(ResponseEntity::ok);
+    }
+
+    /**
+     * 질문 처리 (SSE 스트리밍: sources → token... → done 또는 error)
+     */
+    @PostMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> streamQuery(@Valid @RequestBody QueryRequest request) {
+        log.info("Streaming query from user: {}", request.getUserName());
+        return queryService.streamQuery(request);
+    }
+
+    /**
+     * 일괄 질문 처리 (SSE 스트리밍: job → result/failed... → done)
+     * 작업은 연결이 끊겨도 계속 실행되며, job 이벤트의 작업 ID로 상태를 조회할 수 있다.
+     */
+    @PostMapping(value = "/batch", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> submitBatch(@Valid @RequestBody BatchQueryRequest request) {
+        log.info("Batch query with {} questions", request.getQueries().size());
+        String jobId = batchQueryService.submit(request.getQueries());
+        return batchQueryService.stream(jobId);
+    }
+
+    /**
+     * 일괄 질문 작업 상태 조회
+     */
+    @GetMapping("/batch/{jobId}")
+    public ResponseEntity<BatchQueryStatus> getBatchStatus(@PathVariable String jobId) {
+        return ResponseEntity.ok(batchQueryService.getStatus(jobId));
+    }
+
+    /**
+     * 일괄 질문 작업 결과 스트림에 다시 연결 (끝난 결과부터 다시 보냄)
+     */
+    @GetMapping(value = "/batch/{jobId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> streamBatch(@PathVariable String jobId) {
+        return batchQueryService.stream(jobId);
     }
 
     /**
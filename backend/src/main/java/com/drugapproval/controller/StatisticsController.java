@@ -44,4 +44,13 @@ public class StatisticsController {
         StatisticsDto.QueryStatistics statistics = statisticsService.getQueryStatistics();
         return ResponseEntity.ok(statistics);
     }
+
+    /**
+     * 벡터 저장소 통계 조회
+     */
+    @GetMapping("/vector-store")
+    public ResponseEntity<StatisticsDto.VectorStoreStatistics> getVectorStoreStatistics() {
+        StatisticsDto.VectorStoreStatistics statistics = statisticsService.getVectorStoreStatistics();
+        return ResponseEntity.ok(statistics);
+    }
 }
@@ -0,0 +1,25 @@
+package com.drugapproval.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 일괄 질문 요청 DTO (검토 체크리스트)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchQueryRequest {
+
+    @NotEmpty(message = "질문 목록은 필수입니다")
+    @Size(max = 200, message = "한 번에 최대 200개의 질문을 요청할 수 있습니다")
+    private List<@Valid QueryRequest> queries;
+}
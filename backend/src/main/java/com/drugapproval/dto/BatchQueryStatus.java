@@ -0,0 +1,46 @@
+package com.drugapproval.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 일괄 질문 작업 상태 DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchQueryStatus {
+
+    private String jobId;
+    private Status status;
+    private Integer total;
+    private Integer completed;
+    private Integer failed;
+    private LocalDateTime createdAt;
+    private LocalDateTime finishedAt;
+    private List<Item> results;
+
+    public enum Status {
+        RUNNING, COMPLETED
+    }
+
+    /**
+     * 질문별 결과 (요청 순서의 index, 실패 시 error)
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private Integer index;
+        private String question;
+        private QueryResponse response;
+        private String error;
+    }
+}
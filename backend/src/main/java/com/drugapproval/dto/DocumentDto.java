@@ -28,6 +28,10 @@ public class DocumentDto {
     private String uploadedBy;
     private Document.DocumentStatus status;
     private String errorMessage;
+    private String contentHash;
+    private Long duplicateOf;
+    private Document.IngestionStage completedStage;
+    private Integer retryCount;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
@@ -44,6 +48,10 @@ public class DocumentDto {
             .uploadedBy(document.getUploadedBy())
             .status(document.getStatus())
             .errorMessage(document.getErrorMessage())
+            .contentHash(document.getContentHash())
+            .duplicateOf(document.getDuplicateOf())
+            .completedStage(document.getCompletedStage())
+            .retryCount(document.getRetryCount())
             .createdAt(document.getCreatedAt())
             .updatedAt(document.getUpdatedAt())
             .build();
@@ -0,0 +1,21 @@
+package com.drugapproval.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 페이지 텍스트 DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageTextDto {
+
+    private Long documentId;
+    private Integer pageNumber;
+    private Integer pageCount;
+    private String text;
+}
@@ -3,6 +3,7 @@ package com.drugapproval.dto;
 import com.drugapproval.entity.QueryHistory.PromptType;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -27,4 +28,8 @@ public class QueryRequest {
     private String userName;
 
     private String userDepartment;
+
+    /** 대화 세션 ID (클라이언트가 정함, 같은 ID의 후속 질문은 이전 대화에 이어서 답변, 일괄 질문에서는 무시) */
+    @Size(max = 100, message = "세션 ID는 100자 이하여야 합니다")
+    private String sessionId;
 }
@@ -24,6 +24,9 @@ public class QueryResponse {
     private QueryHistory.PromptType promptType;
     private List<RelevantDocument> relevantDocuments;
     private Integer responseTimeMs;
+    private Boolean cached;
+    /** 대화 세션 ID (세션 질문일 때만) */
+    private String sessionId;
     private LocalDateTime createdAt;
 
     @Data
@@ -36,5 +39,9 @@ public class QueryResponse {
         private Integer pageNumber;
         private String excerpt;
         private Double similarity;
+        /** 하이브리드 검색 융합 점수 (RRF) */
+        private Double score;
+        /** 검색 경로 (vector, keyword, hybrid) */
+        private String retrievedBy;
     }
 }
@@ -20,6 +20,7 @@ public class StatisticsDto {
 
     private DocumentStatistics documentStatistics;
     private QueryStatistics queryStatistics;
+    private VectorStoreStatistics vectorStoreStatistics;
 
     @Data
     @Builder
@@ -58,4 +59,19 @@ public class StatisticsDto {
         private String department;
         private long queryCount;
     }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class VectorStoreStatistics {
+        private String type;
+        private Long chunkCount;
+        private Long deletedCount;
+        private Integer dimension;
+        private String quantization;
+        private Integer bytesPerVector;
+        private long recallSamples;
+        private Double averageRecall;
+    }
 }
@@ -3,11 +3,18 @@ package com.drugapproval.entity;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
 /**
  * 문서 엔티티
  */
 @Entity
-@Table(name = "documents")
+@Table(name = "documents", indexes = {
+    @Index(name = "idx_documents_content_hash", columnList = "contentHash"),
+    @Index(name = "idx_documents_duplicate_of", columnList = "duplicateOf")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -56,10 +63,58 @@ public class Document extends BaseEntity {
     @Column(length = 1000)
     private String errorMessage;
 
+    /**
+     * 파일 내용의 SHA-256 (hex)
+     */
+    @Column(length = 64)
+    private String contentHash;
+
+    /**
+     * 중복 업로드인 경우 인덱싱 결과를 공유하는 원본 문서 ID
+     */
+    @Column
+    private Long duplicateOf;
+
+    /**
+     * 마지막으로 완료된 수집 단계 (재시도 시 다음 단계부터 재개)
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(length = 30)
+    private IngestionStage completedStage;
+
+    /**
+     * 자동 재시도 횟수
+     */
+    @Column
+    private Integer retryCount;
+
+    /**
+     * 수집 단계 체크포인트 (순서대로 진행)
+     */
+    public enum IngestionStage {
+        EXTRACTED,
+        CHUNKED,
+        VECTOR_STORED,
+        SEARCH_INDEXED;
+
+        public boolean isReached(IngestionStage completed) {
+            return completed != null && completed.compareTo(this) >= 0;
+        }
+    }
+
     public enum DocumentStatus {
         UPLOADING,
         PROCESSING,
+        EXTRACTING,
+        EMBEDDING,
+        INDEXING,
         COMPLETED,
-        FAILED
+        FAILED;
+
+        /**
+         * 수집 작업이 진행 중인 상태 (대기열 등록 ~ 인덱싱)
+         */
+        public static final Set<DocumentStatus> IN_PROGRESS =
+            Collections.unmodifiableSet(EnumSet.of(UPLOADING, PROCESSING, EXTRACTING, EMBEDDING, INDEXING));
     }
 }
@@ -0,0 +1,31 @@
+package com.drugapproval.exception;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * 처리 용량 초과 예외 (429 Too Many Requests + Retry-After)
+ */
+public class TooManyRequestsException extends ResponseStatusException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String reason, long retryAfterSeconds) {
+        super(HttpStatus.TOO_MANY_REQUESTS, reason);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        return headers;
+    }
+}
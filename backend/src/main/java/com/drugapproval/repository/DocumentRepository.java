@@ -2,14 +2,21 @@ package com.drugapproval.repository;
 
 import com.drugapproval.entity.Document;
 import com.drugapproval.entity.Document.DocumentStatus;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * 문서 리포지토리
@@ -23,11 +30,45 @@ public interface DocumentRepository extends JpaRepository<Document, Long> {
 
     List<Document> findByUploadedBy(String uploadedBy);
 
+    Optional<Document> findFirstByContentHashAndStatusInAndDuplicateOfIsNullOrderByIdAsc(
+        String contentHash, Collection<DocumentStatus> statuses);
+
+    /**
+     * 행 잠금을 걸고 조회 (삭제 중 재처리 등록과 겹치지 않도록, 트랜잭션 안에서만 사용)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d FROM Document d WHERE d.id = :id")
+    Optional<Document> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * 현재 상태가 expected일 때만 상태 변경 (여러 요청이 같은 문서를 동시에 선점하지 않도록)
+     * @return 변경된 행 수 (1이면 선점 성공)
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Document d SET d.status = :status WHERE d.id = :id AND d.status = :expected")
+    int updateStatusIf(@Param("id") Long id, @Param("expected") DocumentStatus expected,
+                       @Param("status") DocumentStatus status);
+
+    List<Document> findByDuplicateOfOrderByIdAsc(Long duplicateOf);
+
+    List<Document> findByStatusInAndDuplicateOfIsNull(Collection<DocumentStatus> statuses);
+
+    /**
+     * 자동 재시도 대상 (재시도 횟수 미만, 마지막 변경 후 일정 시간 경과, 오래된 순)
+     */
+    @Query("SELECT d FROM Document d WHERE d.status = :status AND d.duplicateOf IS NULL " +
+        "AND COALESCE(d.retryCount, 0) < :maxAttempts AND d.updatedAt < :before ORDER BY d.updatedAt ASC")
+    List<Document> findRetryable(@Param("status") DocumentStatus status, @Param("maxAttempts") int maxAttempts,
+                                 @Param("before") LocalDateTime before, Pageable pageable);
+
     List<Document> findByCreatedAtBetween(LocalDateTime startDate, LocalDateTime endDate);
 
     @Query("SELECT COUNT(d) FROM Document d WHERE d.status = :status")
     long countByStatus(DocumentStatus status);
 
+    long countByStatusIn(Collection<DocumentStatus> statuses);
+
     @Query("SELECT d.status, COUNT(d) FROM Document d GROUP BY d.status")
     List<Object[]> countByStatusGrouped();
 }
@@ -0,0 +1,223 @@
+package com.drugapproval.service;
+
+import com.drugapproval.dto.QueryResponse;
+import com.drugapproval.entity.QueryHistory.PromptType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * 질의 응답 캐시
+ * 정규화한 질문 + 프롬프트 타입으로 답변을 보관하고(LRU, TTL), 선택적으로 질문 임베딩의
+ * 코사인 유사도로 표현만 다른 같은 질문도 찾는다. (질문 임베딩은 ChromaDB 검색과 같은 캐시를 사용)
+ * 문서가 추가/삭제되면 세대 번호를 올려 전체를 무효화하며, 무효화 이전에 시작한 질의의 답변은 저장하지 않는다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AnswerCache {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern TRAILING_PUNCTUATION = Pattern.compile("[\\s?？!！.。~]+$");
+
+    private final EmbeddingService embeddingService;
+
+    @Value("${app.query-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.query-cache.max-entries:500}")
+    private int maxEntries;
+
+    @Value("${app.query-cache.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    @Value("${app.query-cache.semantic-matching:false}")
+    private boolean semanticMatching;
+
+    @Value("${app.query-cache.similarity-threshold:0.95}")
+    private double similarityThreshold;
+
+    /** 접근 순서 LRU (this로 동기화) */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * 캐시 조회 (정확히 일치하는 질문 → 임베딩 유사 질문 순)
+     * @return 조회 결과 (적중하지 않으면 hit()이 null이며, 같은 Lookup으로 put 가능)
+     */
+    public Lookup lookup(String question, PromptType promptType) {
+        Lookup lookup = new Lookup(normalize(question) + "|" + promptType, question, promptType, generation.get());
+        if (!enabled) {
+            return lookup;
+        }
+
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            Entry entry = entries.get(lookup.key);
+            if (entry != null && entry.expiresAt > now) {
+                lookup.hit = entry.answer;
+                log.debug("Answer cache hit: {}", lookup.key);
+                return lookup;
+            }
+        }
+
+        if (semanticMatching) {
+            lookup.embedding = embed(question);
+            if (lookup.embedding != null) {
+                lookup.hit = findSimilar(promptType, lookup.embedding, now);
+            }
+        }
+        return lookup;
+    }
+
+    /**
+     * 답변 저장 (조회 이후 무효화가 있었으면 저장하지 않음)
+     */
+    public void put(Lookup lookup, CachedAnswer answer) {
+        if (!enabled || lookup.generation != generation.get()) {
+            return;
+        }
+        if (semanticMatching && lookup.embedding == null) {
+            lookup.embedding = embed(lookup.question);
+        }
+
+        Entry entry = new Entry(lookup.promptType, lookup.embedding, answer,
+            System.currentTimeMillis() + ttlMinutes * 60_000);
+        synchronized (this) {
+            if (lookup.generation == generation.get()) {
+                entries.put(lookup.key, entry);
+            }
+        }
+    }
+
+    /**
+     * 전체 무효화 (문서 추가/삭제 시)
+     */
+    public void invalidateAll() {
+        synchronized (this) {
+            generation.incrementAndGet();
+            if (!entries.isEmpty()) {
+                log.debug("Answer cache invalidated ({} entries)", entries.size());
+            }
+            entries.clear();
+        }
+    }
+
+    /**
+     * 질문 정규화 (유니코드 호환 정규화, 소문자, 공백 축약, 끝 문장부호 제거)
+     */
+    static String normalize(String question) {
+        String normalized = Normalizer.normalize(question, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        normalized = WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+        return TRAILING_PUNCTUATION.matcher(normalized).replaceAll("");
+    }
+
+    private synchronized CachedAnswer findSimilar(PromptType promptType, float[] embedding, long now) {
+        Entry best = null;
+        double bestSimilarity = similarityThreshold;
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.expiresAt <= now) {
+                iterator.remove();
+                continue;
+            }
+            if (entry.promptType != promptType || entry.embedding == null
+                || entry.embedding.length != embedding.length) {
+                continue;
+            }
+            double similarity = dot(entry.embedding, embedding);
+            if (similarity >= bestSimilarity) {
+                best = entry;
+                bestSimilarity = similarity;
+            }
+        }
+        if (best != null) {
+            log.debug("Answer cache semantic hit (similarity {})", bestSimilarity);
+            return best.answer;
+        }
+        return null;
+    }
+
+    /**
+     * 정규화된(단위 길이) 질문 임베딩, 임베딩 모델을 사용할 수 없으면 null
+     */
+    private float[] embed(String question) {
+        try {
+            float[] vector = embeddingService.embed(question).clone();
+            double norm = Math.sqrt(dot(vector, vector));
+            if (norm == 0) {
+                return null;
+            }
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] /= (float) norm;
+            }
+            return vector;
+        } catch (Exception e) {
+            log.debug("Question embedding unavailable, skipping semantic cache matching: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    /**
+     * 캐시된 답변
+     */
+    public record CachedAnswer(String answer, List<QueryResponse.RelevantDocument> relevantDocuments) {}
+
+    private record Entry(PromptType promptType, float[] embedding, CachedAnswer answer, long expiresAt) {}
+
+    /**
+     * 캐시 조회 결과 (저장 시 키, 임베딩, 조회 시점의 세대 번호를 재사용)
+     */
+    public static final class Lookup {
+
+        private final String key;
+        private final String question;
+        private final PromptType promptType;
+        private final long generation;
+        private float[] embedding;
+        private CachedAnswer hit;
+
+        private Lookup(String key, String question, PromptType promptType, long generation) {
+            this.key = key;
+            this.question = question;
+            this.promptType = promptType;
+            this.generation = generation;
+        }
+
+        public CachedAnswer hit() {
+            return hit;
+        }
+
+        /**
+         * 정규화한 질문 + 프롬프트 타입 키
+         */
+        public String key() {
+            return key;
+        }
+    }
+}
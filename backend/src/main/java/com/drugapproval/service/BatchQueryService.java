@@ -0,0 +1,216 @@
+package com.drugapproval.service;
+
+import com.drugapproval.dto.BatchQueryStatus;
+import com.drugapproval.dto.QueryRequest;
+import com.drugapproval.dto.QueryResponse;
+import com.drugapproval.exception.TooManyRequestsException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.function.Tuples;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 일괄 질문 처리 서비스 (검토 체크리스트)
+ * 모든 질문의 캐시 조회/문서 검색을 동시에(retrieval-concurrency) 진행하고, 검색이 끝난 질문부터
+ * 제한된 병렬도(generation-concurrency)로 LLM 생성 단계에 넘긴다. 결과는 끝나는 순서대로 작업 스트림에
+ * 전달되며, 작업은 연결과 무관하게 끝까지 실행되므로 작업 ID로 상태를 조회하거나 다시 스트림에 붙을 수 있다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BatchQueryService {
+
+    private static final String EVENT_JOB = "job";
+    private static final String EVENT_RESULT = "result";
+    private static final String EVENT_FAILED = "failed";
+    private static final String EVENT_DONE = "done";
+
+    private final QueryService queryService;
+
+    @Value("${app.batch.retrieval-concurrency:8}")
+    private int retrievalConcurrency;
+
+    @Value("${app.batch.generation-concurrency:2}")
+    private int generationConcurrency;
+
+    @Value("${app.batch.max-active-jobs:4}")
+    private int maxActiveJobs;
+
+    @Value("${app.batch.admission-retries:10}")
+    private int admissionRetries;
+
+    @Value("${app.batch.retry-after-seconds:30}")
+    private long retryAfterSeconds;
+
+    @Value("${app.batch.job-ttl-minutes:60}")
+    private long jobTtlMinutes;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    /** 실행 중 작업 수 확인과 작업 등록을 한 번에 수행하기 위한 잠금 */
+    private final Object admissionLock = new Object();
+
+    /**
+     * 일괄 질문 작업 시작 (동시 실행 작업 수를 넘으면 429)
+     */
+    public String submit(List<QueryRequest> requests) {
+        evictExpired();
+        Job job = new Job(UUID.randomUUID().toString(), requests);
+        synchronized (admissionLock) {
+            long active = jobs.values().stream().filter(running -> running.finishedAt == null).count();
+            if (active >= maxActiveJobs) {
+                throw new TooManyRequestsException(
+                    "처리 중인 일괄 질문 작업이 많습니다. 잠시 후 다시 시도해주세요.", retryAfterSeconds);
+            }
+            jobs.put(job.id, job);
+        }
+        log.info("Batch query job {} started with {} questions", job.id, requests.size());
+
+        Flux.range(0, requests.size())
+            // 1. 캐시 조회 + 문서 검색 (모든 질문을 동시에 진행하고 결과는 생성 단계까지 버퍼링)
+            .flatMap(index -> queryService.prepare(requests.get(index))
+                .map(prepared -> Tuples.of(index, prepared))
+                .onErrorResume(e -> {
+                    job.fail(index, e);
+                    return Mono.empty();
+                }), retrievalConcurrency)
+            .onBackpressureBuffer()
+            // 2. LLM 생성 (제한된 병렬도, 생성 대기열이 가득 차면 잠시 후 재시도)
+            .flatMap(prepared -> queryService.answer(prepared.getT2())
+                .retryWhen(Retry.backoff(admissionRetries, Duration.ofSeconds(2))
+                    .maxBackoff(Duration.ofSeconds(30))
+                    .filter(TooManyRequestsException.class::isInstance))
+                .doOnNext(response -> job.complete(prepared.getT1(), response))
+                .onErrorResume(e -> {
+                    job.fail(prepared.getT1(), e);
+                    return Mono.empty();
+                }), generationConcurrency)
+            .doFinally(signal -> job.finish())
+            .subscribe();
+
+        return job.id;
+    }
+
+    /**
+     * 작업 결과 스트림 (job → result/failed... → done, 이미 끝난 결과도 처음부터 다시 보냄)
+     */
+    public Flux<ServerSentEvent<Object>> stream(String jobId) {
+        Job job = find(jobId);
+        return Flux.concat(
+            Mono.just(event(EVENT_JOB, Map.of("jobId", job.id, "total", job.requests.size()))),
+            job.events.asFlux().map(item -> event(item.getError() == null ? EVENT_RESULT : EVENT_FAILED, item)),
+            Mono.fromCallable(() -> event(EVENT_DONE, Map.of(
+                "jobId", job.id, "completed", job.completed, "failed", job.failed)))
+        );
+    }
+
+    /**
+     * 작업 상태 조회 (끝난 질문의 결과 포함)
+     */
+    public BatchQueryStatus getStatus(String jobId) {
+        Job job = find(jobId);
+        synchronized (job) {
+            return BatchQueryStatus.builder()
+                .jobId(job.id)
+                .status(job.finishedAt == null ? BatchQueryStatus.Status.RUNNING : BatchQueryStatus.Status.COMPLETED)
+                .total(job.requests.size())
+                .completed(job.completed)
+                .failed(job.failed)
+                .createdAt(job.createdAt)
+                .finishedAt(job.finishedAt)
+                .results(Arrays.stream(job.results).filter(Objects::nonNull).toList())
+                .build();
+        }
+    }
+
+    private Job find(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Batch query job not found");
+        }
+        return job;
+    }
+
+    /**
+     * 끝난 지 job-ttl-minutes가 지난 작업 제거
+     */
+    private void evictExpired() {
+        LocalDateTime expiry = LocalDateTime.now().minusMinutes(jobTtlMinutes);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(expiry));
+    }
+
+    private ServerSentEvent<Object> event(String name, Object data) {
+        return ServerSentEvent.builder(data).event(name).build();
+    }
+
+    /**
+     * 일괄 질문 작업 (결과 배열 + 늦게 붙은 스트림에도 다시 보내는 결과 싱크, 자신으로 동기화)
+     */
+    private static final class Job {
+
+        private final String id;
+        private final List<QueryRequest> requests;
+        private final BatchQueryStatus.Item[] results;
+        private final Sinks.Many<BatchQueryStatus.Item> events = Sinks.many().replay().all();
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private volatile LocalDateTime finishedAt;
+        private int completed;
+        private int failed;
+
+        Job(String id, List<QueryRequest> requests) {
+            this.id = id;
+            this.requests = new ArrayList<>(requests);
+            this.results = new BatchQueryStatus.Item[requests.size()];
+        }
+
+        synchronized void complete(int index, QueryResponse response) {
+            completed++;
+            record(BatchQueryStatus.Item.builder()
+                .index(index)
+                .question(requests.get(index).getQuestion())
+                .response(response)
+                .build());
+        }
+
+        synchronized void fail(int index, Throwable error) {
+            failed++;
+            String message = error instanceof ResponseStatusException status && status.getReason() != null
+                ? status.getReason()
+                : "응답을 생성하는 중 오류가 발생했습니다.";
+            record(BatchQueryStatus.Item.builder()
+                .index(index)
+                .question(requests.get(index).getQuestion())
+                .error(message)
+                .build());
+        }
+
+        synchronized void finish() {
+            finishedAt = LocalDateTime.now();
+            events.tryEmitComplete();
+            log.info("Batch query job {} finished: {} completed, {} failed", id, completed, failed);
+        }
+
+        private void record(BatchQueryStatus.Item item) {
+            results[item.getIndex()] = item;
+            events.tryEmitNext(item);
+        }
+    }
+}
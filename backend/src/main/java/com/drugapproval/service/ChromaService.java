@@ -1,79 +1,153 @@
 package com.drugapproval.service;
 
+import com.drugapproval.dto.StatisticsDto;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * ChromaDB 벡터 데이터베이스 서비스
  */
 @Slf4j
 @Service
+@ConditionalOnProperty(name = "app.vector-store.type", havingValue = "chroma", matchIfMissing = true)
 @RequiredArgsConstructor
-public class ChromaService {
+public class ChromaService implements VectorStore {
+
+    /** hnsw:space를 지정하지 않고 만든 컬렉션의 ChromaDB 기본 거리 함수 */
+    private static final String DEFAULT_SPACE = "l2";
 
     @Qualifier("chromaWebClient")
     private final WebClient chromaWebClient;
 
     private final ObjectMapper objectMapper;
+    private final OllamaService ollamaService;
+    private final EmbeddingService embeddingService;
 
     @Value("${app.chroma.collection-name}")
     private String collectionName;
 
+    @Value("${app.chroma.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.chroma.max-in-flight-batches:4}")
+    private int maxInFlightBatches;
+
+    @Value("${app.chroma.max-batch-retries:3}")
+    private int maxBatchRetries;
+
+    @Value("${app.chroma.retry-backoff-ms:500}")
+    private long retryBackoffMs;
+
+    @Value("${app.chroma.batch-timeout-seconds:120}")
+    private long batchTimeoutSeconds;
+
+    @Value("${app.embedding.client-side:false}")
+    private boolean clientSideEmbeddings;
+
+    /** 컬렉션 거리 함수 (l2: 제곱 유클리드 거리, cosine, ip) */
+    private volatile String distanceSpace = DEFAULT_SPACE;
+
     /**
-     * 컬렉션 생성
+     * 시작 시 컬렉션 조회 또는 생성 (새 컬렉션은 코사인 거리 사용)
+     * 기존 컬렉션은 만들 때의 거리 함수를 그대로 쓰므로, 응답 메타데이터의 hnsw:space로 유사도 환산 방식을 정한다.
      */
-    public void createCollection() {
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeCollection() {
         try {
+            Map<String, Object> metadata = new HashMap<>();
+            metadata.put("description", "Drug approval documents");
+            // similarity = 1 - distance가 코사인 유사도가 되도록 코사인 거리 사용
+            metadata.put("hnsw:space", "cosine");
+
             Map<String, Object> request = Map.of(
                 "name", collectionName,
-                "metadata", Map.of("description", "Drug approval documents")
+                "metadata", metadata,
+                "get_or_create", true
             );
 
-            chromaWebClient.post()
+            String response = chromaWebClient.post()
                 .uri("/api/v1/collections")
                 .bodyValue(request)
                 .retrieve()
                 .bodyToMono(String.class)
-                .onErrorResume(e -> {
-                    log.warn("Collection may already exist: {}", e.getMessage());
-                    return Mono.just("");
-                })
                 .block();
 
-            log.info("Collection '{}' created or already exists", collectionName);
+            distanceSpace = objectMapper.readTree(response).path("metadata").path("hnsw:space").asText(DEFAULT_SPACE);
+            log.info("Collection '{}' ready (distance: {})", collectionName, distanceSpace);
         } catch (Exception e) {
-            log.error("Error creating collection", e);
+            log.error("Error creating collection '{}', assuming {} distance", collectionName, distanceSpace, e);
         }
     }
 
     /**
      * 문서 임베딩 추가
+     * 요청을 배치로 나누어 최대 maxInFlightBatches개까지 동시에 전송하고, 실패한 배치만 개별 재시도한다.
+     * 클라이언트 임베딩 모드에서는 배치마다 Ollama로 임베딩을 한 번에 계산하여 함께 전송한다.
      */
-    public String addDocuments(List<String> texts, List<Map<String, Object>> metadatas, List<String> ids) {
+    @Override
+    public void addDocuments(List<String> texts, List<Map<String, Object>> metadatas, List<String> ids) {
+        addDocuments(texts, metadatas, ids, (completedBatches, totalBatches, completedItems, totalItems) ->
+            log.debug("ChromaDB add progress: batch {}/{} ({}/{} documents)",
+                completedBatches, totalBatches, completedItems, totalItems));
+    }
+
+    /**
+     * 문서 임베딩 추가 (배치 진행 상황 통지)
+     */
+    public void addDocuments(List<String> texts, List<Map<String, Object>> metadatas, List<String> ids,
+                             BatchProgressListener progressListener) {
+        int total = texts.size();
+        if (total == 0) {
+            return;
+        }
+
+        int size = Math.max(1, batchSize);
+        int totalBatches = (total + size - 1) / size;
+        AtomicInteger completedBatches = new AtomicInteger();
+        AtomicInteger completedItems = new AtomicInteger();
+        long startTime = System.currentTimeMillis();
+
         try {
-            Map<String, Object> request = new HashMap<>();
-            request.put("documents", texts);
-            request.put("metadatas", metadatas);
-            request.put("ids", ids);
+            Flux.range(0, totalBatches)
+                .flatMap(batchIndex -> {
+                    int from = batchIndex * size;
+                    int to = Math.min(from + size, total);
 
-            String response = chromaWebClient.post()
-                .uri("/api/v1/collections/" + collectionName + "/add")
-                .bodyValue(request)
-                .retrieve()
-                .bodyToMono(String.class)
+                    Map<String, Object> request = new HashMap<>();
+                    request.put("documents", texts.subList(from, to));
+                    request.put("metadatas", metadatas.subList(from, to));
+                    request.put("ids", ids.subList(from, to));
+
+                    return withEmbeddings(request, texts.subList(from, to), batchIndex)
+                        .flatMap(prepared -> sendAddBatch(prepared, batchIndex))
+                        .doOnSuccess(response -> progressListener.onBatchCompleted(
+                            completedBatches.incrementAndGet(), totalBatches,
+                            completedItems.addAndGet(to - from), total));
+                }, Math.max(1, maxInFlightBatches))
+                .then()
                 .block();
 
-            log.info("Added {} documents to ChromaDB", texts.size());
-            return response;
+            log.info("Added {} documents to ChromaDB in {} batches ({}ms)",
+                total, totalBatches, System.currentTimeMillis() - startTime);
         } catch (Exception e) {
             log.error("Error adding documents to ChromaDB", e);
             throw new RuntimeException("Failed to add documents to ChromaDB", e);
@@ -81,35 +155,102 @@ public class ChromaService {
     }
 
     /**
-     * 유사 문서 검색
+     * 단일 배치 전송 (일시적 오류는 지수 백오프로 해당 배치만 재시도)
+     * ChromaDB는 이미 존재하는 ID의 add를 무시하므로 재전송해도 중복이 생기지 않는다.
      */
-    public List<SearchResult> query(String queryText, int nResults) {
-        try {
-            Map<String, Object> request = Map.of(
-                "query_texts", List.of(queryText),
-                "n_results", nResults
-            );
+    private Mono<String> sendAddBatch(Map<String, Object> request, int batchIndex) {
+        return chromaWebClient.post()
+            .uri("/api/v1/collections/" + collectionName + "/add")
+            .bodyValue(request)
+            .retrieve()
+            .bodyToMono(String.class)
+            .timeout(Duration.ofSeconds(batchTimeoutSeconds))
+            .retryWhen(batchRetry("ChromaDB batch", batchIndex));
+    }
 
-            String response = chromaWebClient.post()
+    /**
+     * 클라이언트 임베딩 모드이면 배치 텍스트의 임베딩을 계산하여 요청에 추가 (실패 시 임베딩만 재시도)
+     */
+    private Mono<Map<String, Object>> withEmbeddings(Map<String, Object> request, List<String> texts, int batchIndex) {
+        if (!clientSideEmbeddings) {
+            return Mono.just(request);
+        }
+        return ollamaService.embedBatch(texts)
+            .timeout(Duration.ofSeconds(batchTimeoutSeconds))
+            .retryWhen(batchRetry("embedding of batch", batchIndex))
+            .map(embeddings -> {
+                request.put("embeddings", embeddings);
+                return request;
+            });
+    }
+
+    private Retry batchRetry(String target, int batchIndex) {
+        return Retry.backoff(maxBatchRetries, Duration.ofMillis(retryBackoffMs))
+            .filter(this::isRetryable)
+            .doBeforeRetry(signal -> log.warn("Retrying {} {} (attempt {}): {}",
+                target, batchIndex, signal.totalRetries() + 1, signal.failure().getMessage()));
+    }
+
+    /**
+     * 재시도 가능한 오류인지 판단 (연결 오류, 타임아웃, 5xx)
+     */
+    private boolean isRetryable(Throwable error) {
+        if (error instanceof WebClientResponseException responseException) {
+            return responseException.getStatusCode().is5xxServerError();
+        }
+        return error instanceof WebClientRequestException || error instanceof TimeoutException;
+    }
+
+    /**
+     * 유사 문서 검색 (논블로킹, 실패는 오류 신호로 전달)
+     * 클라이언트 임베딩 모드에서는 질문 임베딩(캐시 사용)을 query_embeddings로 전송한다.
+     */
+    @Override
+    public Mono<List<SearchResult>> query(String queryText, int nResults) {
+        Mono<List<?>> queryInput = clientSideEmbeddings
+            ? embeddingService.embedAsync(queryText).map(List::of)
+            : Mono.just(List.of(queryText));
+
+        return queryInput
+            .flatMap(input -> chromaWebClient.post()
                 .uri("/api/v1/collections/" + collectionName + "/query")
+                .bodyValue(Map.of(
+                    clientSideEmbeddings ? "query_embeddings" : "query_texts", input,
+                    "n_results", nResults
+                ))
+                .retrieve()
+                .bodyToMono(String.class))
+            .map(this::parseSearchResults);
+    }
+
+    /**
+     * 문서 삭제
+     */
+    @Override
+    public void deleteDocuments(List<String> ids) {
+        try {
+            Map<String, Object> request = Map.of("ids", ids);
+
+            chromaWebClient.post()
+                .uri("/api/v1/collections/" + collectionName + "/delete")
                 .bodyValue(request)
                 .retrieve()
                 .bodyToMono(String.class)
                 .block();
 
-            return parseSearchResults(response);
+            log.info("Deleted {} documents from ChromaDB", ids.size());
         } catch (Exception e) {
-            log.error("Error querying ChromaDB", e);
-            return Collections.emptyList();
+            log.error("Error deleting documents from ChromaDB", e);
         }
     }
 
     /**
-     * 문서 삭제
+     * 원본 문서 ID에 속한 모든 청크 삭제
      */
-    public void deleteDocuments(List<String> ids) {
+    @Override
+    public void deleteByDocumentId(Long documentId) {
         try {
-            Map<String, Object> request = Map.of("ids", ids);
+            Map<String, Object> request = Map.of("where", Map.of("documentId", documentId));
 
             chromaWebClient.post()
                 .uri("/api/v1/collections/" + collectionName + "/delete")
@@ -118,12 +259,19 @@ public class ChromaService {
                 .bodyToMono(String.class)
                 .block();
 
-            log.info("Deleted {} documents from ChromaDB", ids.size());
+            log.info("Deleted chunks of document {} from ChromaDB", documentId);
         } catch (Exception e) {
-            log.error("Error deleting documents from ChromaDB", e);
+            log.error("Error deleting chunks of document {} from ChromaDB", documentId, e);
         }
     }
 
+    @Override
+    public StatisticsDto.VectorStoreStatistics getStatistics() {
+        return StatisticsDto.VectorStoreStatistics.builder()
+            .type("chroma")
+            .build();
+    }
+
     /**
      * 검색 결과 파싱
      */
@@ -143,7 +291,7 @@ public class ChromaService {
                 result.setDocument(documents.get(i).asText());
                 result.setMetadata(objectMapper.convertValue(metadatas.get(i), Map.class));
                 result.setDistance(distances.get(i).asDouble());
-                result.setSimilarity(1.0 - result.getDistance());
+                result.setSimilarity(similarity(result.getDistance()));
 
                 results.add(result);
             }
@@ -156,29 +304,22 @@ public class ChromaService {
     }
 
     /**
-     * 검색 결과 클래스
+     * 거리를 코사인 유사도로 환산
+     * cosine/ip 거리는 1 - 유사도이고, l2는 제곱 거리이므로 단위 벡터(ChromaDB 기본 임베딩, Ollama /api/embed)에서는
+     * d = 2 - 2cos 관계로 환산한다.
      */
-    public static class SearchResult {
-        private String id;
-        private String document;
-        private Map<String, Object> metadata;
-        private Double distance;
-        private Double similarity;
-
-        // Getters and Setters
-        public String getId() { return id; }
-        public void setId(String id) { this.id = id; }
-
-        public String getDocument() { return document; }
-        public void setDocument(String document) { this.document = document; }
-
-        public Map<String, Object> metadata() { return metadata; }
-        public void setMetadata(Map<String, Object> metadata) { this.metadata = metadata; }
-
-        public Double getDistance() { return distance; }
-        public void setDistance(Double distance) { this.distance = distance; }
+    private double similarity(double distance) {
+        return switch (distanceSpace) {
+            case "cosine", "ip" -> 1.0 - distance;
+            default -> 1.0 - distance / 2;
+        };
+    }
 
-        public Double getSimilarity() { return similarity; }
-        public void setSimilarity(Double similarity) { this.similarity = similarity; }
+    /**
+     * 배치 진행 상황 리스너
+     */
+    @FunctionalInterface
+    public interface BatchProgressListener {
+        void onBatchCompleted(int completedBatches, int totalBatches, int completedItems, int totalItems);
     }
 }
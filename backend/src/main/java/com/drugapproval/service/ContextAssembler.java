@@ -0,0 +1,254 @@
+package com.drugapproval.service;
+
+import com.drugapproval.entity.QueryHistory.PromptType;
+import com.drugapproval.util.TokenEstimator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * LLM 컨텍스트 구성
+ * 검색된 본문 조각에서 유사도가 낮은 조각을 제외하고, 같은 문서/페이지의 인접하거나 겹치는 청크를
+ * 하나로 합친 뒤, 거의 같은 내용의 조각을 제거하고 프롬프트 타입별 토큰 예산 안에 들어가도록 자른다.
+ * (프롬프트 길이가 LLM 처리 시간을 좌우하므로 중복 텍스트를 보내지 않음)
+ */
+@Slf4j
+@Service
+public class ContextAssembler {
+
+    /** 겹침 판정에 사용하는 다음 조각 앞부분 길이 (문자 수) */
+    private static final int OVERLAP_PROBE_CHARS = 16;
+    /** 중복 판정용 단어 n-gram 크기 */
+    private static final int SHINGLE_SIZE = 3;
+
+    @Value("${app.context.max-tokens:1500}")
+    private int defaultMaxTokens;
+
+    @Value("${app.context.prompt-budgets:SIMPLE=800,POINT=1000,DETAILED=3000,STEP_BY_STEP=2500}")
+    private List<String> promptBudgets;
+
+    @Value("${app.context.min-similarity:0}")
+    private double minSimilarity;
+
+    @Value("${app.context.duplicate-threshold:0.8}")
+    private double duplicateThreshold;
+
+    @Value("${app.context.min-passage-tokens:50}")
+    private int minPassageTokens;
+
+    /**
+     * 검색 순위대로 정렬된 본문 조각으로 컨텍스트 구성 (결과도 검색 순위 순)
+     */
+    public List<HybridRetrievalService.Passage> assemble(List<HybridRetrievalService.Passage> passages,
+                                                         PromptType promptType) {
+        // 1. 같은 문서/페이지의 인접하거나 겹치는 청크 병합 (min-similarity를 설정하면 유사도가 낮은 벡터 검색 결과는 제외)
+        List<Group> groups = new ArrayList<>();
+        for (HybridRetrievalService.Passage passage : passages) {
+            if (minSimilarity > 0 && passage.similarity() != null && passage.similarity() < minSimilarity) {
+                continue;
+            }
+            if (passage.text() == null || passage.text().isBlank()) {
+                continue;
+            }
+            boolean merged = false;
+            for (Group group : groups) {
+                if (group.merge(passage)) {
+                    merged = true;
+                    break;
+                }
+            }
+            if (!merged) {
+                groups.add(new Group(passage));
+            }
+        }
+
+        // 2. 대부분이 이미 포함된 조각에 들어 있는 조각 제거 (순위가 높은 쪽을 남김)
+        List<Group> distinct = new ArrayList<>();
+        List<Set<String>> shingles = new ArrayList<>();
+        for (Group group : groups) {
+            Set<String> candidate = shingles(group.text);
+            boolean duplicate = shingles.stream().anyMatch(kept -> containment(candidate, kept) >= duplicateThreshold);
+            if (!duplicate) {
+                distinct.add(group);
+                shingles.add(candidate);
+            }
+        }
+
+        // 3. 토큰 예산 안에서 순위대로 채우기 (마지막 조각은 남은 예산만큼 잘라서 포함)
+        int budget = budgetFor(promptType);
+        int remaining = budget;
+        List<HybridRetrievalService.Passage> context = new ArrayList<>();
+        for (Group group : distinct) {
+            int tokens = TokenEstimator.estimate(group.text);
+            if (tokens <= remaining) {
+                context.add(group.first.withText(group.text));
+                remaining -= tokens;
+                continue;
+            }
+            if (remaining >= minPassageTokens || context.isEmpty()) {
+                context.add(group.first.withText(truncate(group.text, remaining)));
+                remaining = 0;
+            }
+            break;
+        }
+
+        log.debug("Context for {}: {} passages -> {} groups -> {} distinct -> {} used ({} / {} tokens)",
+            promptType, passages.size(), groups.size(), distinct.size(), context.size(), budget - remaining, budget);
+        return context;
+    }
+
+    /**
+     * 프롬프트 타입별 컨텍스트 토큰 예산 ("TYPE=토큰 수" 목록, 없으면 기본값)
+     */
+    int budgetFor(PromptType promptType) {
+        for (String entry : promptBudgets) {
+            int separator = entry.indexOf('=');
+            if (separator > 0 && entry.substring(0, separator).trim().equalsIgnoreCase(promptType.name())) {
+                return Integer.parseInt(entry.substring(separator + 1).trim());
+            }
+        }
+        return defaultMaxTokens;
+    }
+
+    /**
+     * 토큰 예산 안에서 문장/줄/단어 경계로 자르기
+     */
+    private static String truncate(String text, int maxTokens) {
+        int end = TokenEstimator.prefixLength(text, maxTokens);
+        if (end >= text.length()) {
+            return text;
+        }
+        int cut = -1;
+        for (int i = end - 1; i > end / 2 && cut < 0; i--) {
+            char c = text.charAt(i);
+            if (c == '.' || c == '。' || c == '?' || c == '!' || c == '\n') {
+                cut = i + 1;
+            }
+        }
+        if (cut < 0) {
+            cut = text.lastIndexOf(' ', end);
+        }
+        return text.substring(0, cut > 0 ? cut : end).stripTrailing();
+    }
+
+    /**
+     * a의 끝과 b의 앞이 겹치는 길이 (겹치지 않으면 0)
+     */
+    static int overlap(String a, String b) {
+        String probe = b.substring(0, Math.min(OVERLAP_PROBE_CHARS, b.length()));
+        int from = Math.max(0, a.length() - b.length());
+        for (int index = a.indexOf(probe, from); index >= 0; index = a.indexOf(probe, index + 1)) {
+            int length = a.length() - index;
+            if (b.startsWith(a.substring(index))) {
+                return length;
+            }
+        }
+        return 0;
+    }
+
+    private static Set<String> shingles(String text) {
+        String[] words = text.toLowerCase(Locale.ROOT).split("\\s+");
+        Set<String> shingles = new HashSet<>();
+        if (words.length < SHINGLE_SIZE) {
+            shingles.add(String.join(" ", words));
+            return shingles;
+        }
+        for (int i = 0; i + SHINGLE_SIZE <= words.length; i++) {
+            shingles.add(String.join(" ", List.of(words).subList(i, i + SHINGLE_SIZE)));
+        }
+        return shingles;
+    }
+
+    /**
+     * candidate의 단어 n-gram 중 kept에도 있는 비율
+     */
+    private static double containment(Set<String> candidate, Set<String> kept) {
+        if (candidate.isEmpty()) {
+            return 0;
+        }
+        int common = 0;
+        for (String shingle : candidate) {
+            if (kept.contains(shingle)) {
+                common++;
+            }
+        }
+        return (double) common / candidate.size();
+    }
+
+    /**
+     * 같은 문서/페이지에서 이어 붙인 청크 묶음 (대표 조각 = 가장 순위가 높은 조각)
+     */
+    private static final class Group {
+
+        private final HybridRetrievalService.Passage first;
+        private String text;
+        private Integer minChunk;
+        private Integer maxChunk;
+
+        Group(HybridRetrievalService.Passage passage) {
+            this.first = passage;
+            this.text = passage.text();
+            this.minChunk = passage.chunkIndex();
+            this.maxChunk = passage.chunkIndex();
+        }
+
+        /**
+         * 같은 문서/페이지이고 포함·겹침·인접 관계이면 병합
+         */
+        boolean merge(HybridRetrievalService.Passage passage) {
+            if (first.documentId() == null || !Objects.equals(first.documentId(), passage.documentId())
+                || !Objects.equals(first.pageNumber(), passage.pageNumber())) {
+                return false;
+            }
+
+            String other = passage.text();
+            if (text.contains(other)) {
+                return true;
+            }
+            if (other.contains(text)) {
+                text = other;
+                extend(passage.chunkIndex());
+                return true;
+            }
+
+            Integer index = passage.chunkIndex();
+            boolean before = index != null && minChunk != null && index < minChunk;
+            String head = before ? other : text;
+            String tail = before ? text : other;
+
+            int overlap = overlap(head, tail);
+            if (overlap == 0 && (index == null || minChunk == null)) {
+                // 청크 순서를 모르면(키워드 검색 조각) 반대 방향 겹침도 확인
+                overlap = overlap(other, text);
+                if (overlap > 0) {
+                    head = other;
+                    tail = text;
+                }
+            }
+            if (overlap > 0) {
+                text = head + tail.substring(overlap);
+            } else if (index != null && minChunk != null && (index == minChunk - 1 || index == maxChunk + 1)) {
+                text = head + "\n" + tail;
+            } else {
+                return false;
+            }
+            extend(index);
+            return true;
+        }
+
+        private void extend(Integer index) {
+            if (index == null) {
+                return;
+            }
+            minChunk = minChunk == null ? index : Math.min(minChunk, index);
+            maxChunk = maxChunk == null ? index : Math.max(maxChunk, index);
+        }
+    }
+}
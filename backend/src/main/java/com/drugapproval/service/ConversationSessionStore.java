@@ -0,0 +1,111 @@
+package com.drugapproval.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 대화 세션 저장소
+ * 세션(사용자 + 세션 ID)별로 Ollama가 돌려준 context(이전 대화까지 처리한 토큰 배열)와 그 대화에 넣은 참고 문서를 보관한다(LRU, TTL).
+ * 후속 질문의 검색 결과가 같은 문서이면 문서 없이 질문만 보내, Ollama가 앞선 프롬프트를 다시 처리(prefill)하지 않게 한다.
+ * context가 max-context-tokens를 넘으면 세션을 비워 다음 질문부터 새 대화로 시작한다.
+ */
+@Slf4j
+@Service
+public class ConversationSessionStore {
+
+    @Value("${app.conversation.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.conversation.max-sessions:1000}")
+    private int maxSessions;
+
+    @Value("${app.conversation.ttl-minutes:30}")
+    private long ttlMinutes;
+
+    @Value("${app.conversation.max-context-tokens:6000}")
+    private int maxContextTokens;
+
+    /** 접근 순서 LRU (this로 동기화) */
+    private final LinkedHashMap<String, Session> sessions = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Session> eldest) {
+            return size() > maxSessions;
+        }
+    };
+
+    /**
+     * 대화 차례 시작 (세션이 없거나 만료되었으면 context 없이 새 대화)
+     * @param contextDocuments 이번 질문의 검색 결과 (세션에 있는 문서와 같으면 다시 보내지 않음)
+     */
+    public Turn begin(String userName, String sessionId, List<String> contextDocuments) {
+        String key = userName + "|" + sessionId;
+        if (!enabled) {
+            return new Turn(key, null, contextDocuments, false);
+        }
+
+        long now = System.currentTimeMillis();
+        Session session;
+        synchronized (this) {
+            session = sessions.get(key);
+            if (session != null && session.expiresAt <= now) {
+                sessions.remove(key);
+                session = null;
+            }
+        }
+        if (session == null) {
+            return new Turn(key, null, contextDocuments, false);
+        }
+
+        boolean documentsInContext = session.contextDocuments.equals(contextDocuments);
+        log.debug("Conversation follow-up {} ({} context tokens, documents {})",
+            key, session.context.length, documentsInContext ? "reused" : "changed");
+        return new Turn(key, session.context, contextDocuments, documentsInContext);
+    }
+
+    /**
+     * 대화 차례 완료 (Ollama가 돌려준 context 저장, 없거나 너무 길면 세션 제거)
+     */
+    public void complete(Turn turn, int[] context) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            if (context == null || context.length == 0 || context.length > maxContextTokens) {
+                if (sessions.remove(turn.key) != null) {
+                    log.debug("Conversation {} reset ({} context tokens)", turn.key,
+                        context != null ? context.length : 0);
+                }
+                return;
+            }
+            sessions.put(turn.key, new Session(context, turn.contextDocuments,
+                System.currentTimeMillis() + ttlMinutes * 60_000));
+        }
+    }
+
+    /**
+     * 활성 세션 수
+     */
+    public synchronized int size() {
+        return sessions.size();
+    }
+
+    private record Session(int[] context, List<String> contextDocuments, long expiresAt) {}
+
+    /**
+     * 대화 차례 (이전 context, 이번 검색 결과, 검색 결과가 이미 context에 들어 있는지 여부)
+     */
+    public record Turn(String key, int[] context, List<String> contextDocuments, boolean documentsInContext) {
+
+        /**
+         * 이번 프롬프트에 넣을 참고 문서 (이미 context에 있으면 비움)
+         */
+        public List<String> promptDocuments() {
+            return documentsInContext ? List.of() : contextDocuments;
+        }
+    }
+}
@@ -0,0 +1,656 @@
+package com.drugapproval.service;
+
+import com.drugapproval.entity.Document;
+import com.drugapproval.entity.Document.DocumentStatus;
+import com.drugapproval.entity.Document.IngestionStage;
+import com.drugapproval.exception.TooManyRequestsException;
+import com.drugapproval.repository.DocumentRepository;
+import com.drugapproval.util.ChunkPipeline;
+import com.drugapproval.util.ChunkSpool;
+import com.drugapproval.util.PageTextStore;
+import com.drugapproval.util.PdfProcessor;
+import com.drugapproval.util.TextChunker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 문서 수집(ingestion) 서비스
+ * 업로드된 문서를 작업 큐에 넣고 워커 스레드에서 단계별로 처리한다.
+ * (PDF 추출 → 벡터DB 저장 → 검색 인덱싱)
+ * 스트리밍 모드에서는 페이지 단위로 추출한 청크를 유한 파이프라인으로 벡터DB에 흘려보낸다.
+ * 검색 인덱스는 기본적으로 페이지 단위 항목으로 _bulk 적재한다.
+ * 추출한 페이지 텍스트는 문서별 페이지 텍스트 파일에도 기록하여 처리 후에도 PDF를 다시 열지 않고 조회할 수 있게 한다.
+ * 실패한 문서는 재시도 API 또는 주기적 자동 재시도로 마지막 완료 단계부터 다시 처리한다.
+ */
+@Slf4j
+@Service
+public class DocumentIngestionService {
+
+    private final DocumentRepository documentRepository;
+    private final PdfProcessor pdfProcessor;
+    private final ChunkSpool chunkSpool;
+    private final PageTextStore pageTextStore;
+    private final VectorStore vectorStore;
+    private final KeywordIndex keywordIndex;
+    private final AnswerCache answerCache;
+    private final ThreadPoolTaskExecutor ingestionExecutor;
+    private final ThreadPoolTaskExecutor chunkStoreExecutor;
+
+    /** 문서별 페이지 텍스트 생성 작업 (문서당 하나, 삭제 중에는 삭제 트랜잭션이 끝날 때까지 자리를 차지) */
+    private final Map<Long, CompletableFuture<Void>> pageTextBackfills = new ConcurrentHashMap<>();
+
+    @Value("${app.ingestion.retry-after-seconds:30}")
+    private long retryAfterSeconds;
+
+    @Value("${app.ingestion.streaming:true}")
+    private boolean streaming;
+
+    @Value("${app.ingestion.chunk-batch-size:400}")
+    private int chunkBatchSize;
+
+    @Value("${app.ingestion.pipeline-queue-capacity:4}")
+    private int pipelineQueueCapacity;
+
+    @Value("${app.opensearch.page-level-indexing:true}")
+    private boolean pageLevelIndexing;
+
+    @Value("${app.ingestion.retry.enabled:true}")
+    private boolean autoRetryEnabled;
+
+    @Value("${app.ingestion.retry.max-attempts:3}")
+    private int maxRetryAttempts;
+
+    @Value("${app.ingestion.retry.backoff-minutes:5}")
+    private long retryBackoffMinutes;
+
+    public DocumentIngestionService(
+        DocumentRepository documentRepository,
+        PdfProcessor pdfProcessor,
+        ChunkSpool chunkSpool,
+        PageTextStore pageTextStore,
+        VectorStore vectorStore,
+        KeywordIndex keywordIndex,
+        AnswerCache answerCache,
+        @Qualifier("ingestionExecutor") ThreadPoolTaskExecutor ingestionExecutor,
+        @Qualifier("chunkStoreExecutor") ThreadPoolTaskExecutor chunkStoreExecutor
+    ) {
+        this.documentRepository = documentRepository;
+        this.pdfProcessor = pdfProcessor;
+        this.chunkSpool = chunkSpool;
+        this.pageTextStore = pageTextStore;
+        this.vectorStore = vectorStore;
+        this.keywordIndex = keywordIndex;
+        this.answerCache = answerCache;
+        this.ingestionExecutor = ingestionExecutor;
+        this.chunkStoreExecutor = chunkStoreExecutor;
+    }
+
+    /**
+     * 문서 처리 작업을 큐에 등록
+     * @throws TooManyRequestsException 작업 큐가 가득 찬 경우
+     */
+    public void enqueue(Long documentId) {
+        try {
+            ingestionExecutor.execute(() -> processDocument(documentId));
+            log.info("Document {} queued for ingestion (queued: {}, active: {})",
+                documentId, getQueuedCount(), ingestionExecutor.getActiveCount());
+        } catch (TaskRejectedException e) {
+            log.warn("Ingestion queue is full, rejecting document {}", documentId);
+            throw new TooManyRequestsException("문서 처리 대기열이 가득 찼습니다. 잠시 후 다시 시도해주세요.",
+                retryAfterSeconds);
+        }
+    }
+
+    /**
+     * 페이지 텍스트 파일 없이 처리가 끝난 문서의 페이지 텍스트를 수집 워커에서 생성 (페이지 텍스트 파일 도입 이전 문서)
+     * 같은 문서에 대한 생성은 하나만 실행되며, 이미 실행 중이거나 문서가 삭제 중이면 아무것도 하지 않는다.
+     * @throws TooManyRequestsException 작업 큐가 가득 찬 경우
+     */
+    public void backfillPageText(Long documentId, File pdfFile) {
+        CompletableFuture<Void> backfill = new CompletableFuture<>();
+        if (pageTextBackfills.putIfAbsent(documentId, backfill) != null) {
+            return;
+        }
+        try {
+            ingestionExecutor.execute(() -> {
+                try {
+                    writePageText(documentId, pdfFile);
+                } catch (Exception e) {
+                    log.error("Error writing page text of document {}", documentId, e);
+                } finally {
+                    pageTextBackfills.remove(documentId, backfill);
+                    backfill.complete(null);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            pageTextBackfills.remove(documentId, backfill);
+            backfill.complete(null);
+            throw new TooManyRequestsException("문서 처리 대기열이 가득 찼습니다. 잠시 후 다시 시도해주세요.",
+                retryAfterSeconds);
+        }
+    }
+
+    /**
+     * 문서 삭제 전 호출: 진행 중인 페이지 텍스트 생성이 끝날 때까지 기다리고,
+     * 현재 트랜잭션이 끝날 때까지 새 생성을 막아 삭제 후 페이지 텍스트 파일이 다시 생기지 않게 한다.
+     */
+    public void blockPageTextBackfill(Long documentId) {
+        CompletableFuture<Void> marker = new CompletableFuture<>();
+        CompletableFuture<Void> running;
+        while ((running = pageTextBackfills.putIfAbsent(documentId, marker)) != null) {
+            running.join();
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                pageTextBackfills.remove(documentId, marker);
+                marker.complete(null);
+            }
+        });
+    }
+
+    private void writePageText(Long documentId, File pdfFile) throws IOException {
+        long startTime = System.currentTimeMillis();
+        try (PageTextStore.Writer writer = pageTextStore.openWriter(documentId)) {
+            int pageCount = pdfProcessor.streamPages(pdfFile, writer::writePage);
+            writer.commit();
+            log.info("Page text of document {} written from PDF ({} pages, {}ms)",
+                documentId, pageCount, System.currentTimeMillis() - startTime);
+        }
+    }
+
+    /**
+     * 현재 트랜잭션이 커밋된 뒤 문서 처리 작업을 큐에 등록
+     * (커밋 후에는 요청자에게 429를 돌려줄 수 없으므로, 큐가 가득 차면 문서를 FAILED로 표시)
+     */
+    public void enqueueAfterCommit(Long documentId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    enqueue(documentId);
+                } catch (TooManyRequestsException e) {
+                    documentRepository.findById(documentId).ifPresent(document -> {
+                        document.setErrorMessage("문서 처리 대기열이 가득 차 재처리하지 못했습니다.");
+                        updateStatus(document, DocumentStatus.FAILED);
+                    });
+                }
+            }
+        });
+    }
+
+    /**
+     * 실패한 문서를 재처리 대기 상태로 되돌리고 큐에 등록 (마지막 완료 단계부터 재개)
+     * FAILED → UPLOADING 전환은 조건부 UPDATE로 선점하므로, 수동/자동 재시도가 겹쳐도 한 번만 등록된다.
+     * @throws ResponseStatusException 다른 요청이 먼저 재처리를 시작했거나 실패 상태가 아닌 경우 (409)
+     * @throws TooManyRequestsException 작업 큐가 가득 찬 경우 (문서는 FAILED 상태로 유지)
+     */
+    public Document retry(Document document) {
+        int claimed = documentRepository.updateStatusIf(document.getId(), DocumentStatus.FAILED,
+            DocumentStatus.UPLOADING);
+        if (claimed != 1) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "이미 재처리 중이거나 실패한 문서가 아닙니다.");
+        }
+        document = updateStatus(document, DocumentStatus.UPLOADING);
+        try {
+            enqueue(document.getId());
+        } catch (TooManyRequestsException e) {
+            updateStatus(document, DocumentStatus.FAILED);
+            throw e;
+        }
+        log.info("Document {} queued for retry after stage {}", document.getId(), document.getCompletedStage());
+        return document;
+    }
+
+    /**
+     * 실패한 문서 자동 재시도 (마지막 실패 후 backoff가 지난 문서를 큐의 남은 자리만큼 등록)
+     */
+    @Scheduled(initialDelayString = "${app.ingestion.retry.interval-ms:60000}",
+        fixedDelayString = "${app.ingestion.retry.interval-ms:60000}")
+    public void retryFailedDocuments() {
+        int remainingCapacity = ingestionExecutor.getThreadPoolExecutor().getQueue().remainingCapacity();
+        if (!autoRetryEnabled || remainingCapacity == 0) {
+            return;
+        }
+
+        List<Document> candidates = documentRepository.findRetryable(DocumentStatus.FAILED, maxRetryAttempts,
+            LocalDateTime.now().minusMinutes(retryBackoffMinutes), PageRequest.of(0, remainingCapacity));
+
+        for (Document document : candidates) {
+            int attempt = (document.getRetryCount() != null ? document.getRetryCount() : 0) + 1;
+            document.setRetryCount(attempt);
+            try {
+                retry(document);
+                log.info("Auto-retrying document {} (attempt {}/{})", document.getId(), attempt, maxRetryAttempts);
+            } catch (TooManyRequestsException e) {
+                return;
+            } catch (ResponseStatusException e) {
+                log.debug("Document {} was already picked up for retry", document.getId());
+            }
+        }
+    }
+
+    /**
+     * 애플리케이션 재시작으로 중단된 문서를 다시 큐에 등록
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedDocuments() {
+        for (Document document : documentRepository.findByStatusInAndDuplicateOfIsNull(DocumentStatus.IN_PROGRESS)) {
+            try {
+                enqueue(document.getId());
+            } catch (TooManyRequestsException e) {
+                document.setErrorMessage("재시작 후 대기열이 가득 차 재처리하지 못했습니다.");
+                updateStatus(document, DocumentStatus.FAILED);
+            }
+        }
+    }
+
+    /**
+     * 대기 중인 작업 수
+     */
+    public int getQueuedCount() {
+        return ingestionExecutor.getThreadPoolExecutor().getQueue().size();
+    }
+
+    /**
+     * 문서 처리 (PDF 추출, 벡터DB 저장, 검색 인덱싱)
+     * 요청 트랜잭션 밖의 워커 스레드에서 실행되며, 단계 전환마다 상태를 즉시 저장한다.
+     * 단계가 끝날 때마다 체크포인트를 기록하고 추출 결과는 로컬 스풀에 보관하므로,
+     * 재시도 시에는 마지막으로 완료된 단계 다음부터 재개한다.
+     */
+    void processDocument(Long documentId) {
+        Document document = documentRepository.findById(documentId).orElse(null);
+        if (document == null) {
+            log.warn("Document {} was removed before ingestion started", documentId);
+            return;
+        }
+
+        try {
+            document.setCompletedStage(resumableStage(document));
+            document = updateStatus(document, DocumentStatus.PROCESSING);
+            if (document.getCompletedStage() != null) {
+                log.info("Resuming document {} after stage {}", documentId, document.getCompletedStage());
+            }
+
+            // 1. PDF 텍스트 추출 및 청크 분할 (스트리밍 모드에서는 저장/인덱싱도 함께 진행)
+            if (!IngestionStage.CHUNKED.isReached(document.getCompletedStage())) {
+                if (IngestionStage.EXTRACTED.isReached(document.getCompletedStage())) {
+                    document = chunkSpooledPages(document);
+                } else if (streaming) {
+                    document = ingestStreaming(document);
+                } else {
+                    document = extractToSpool(document);
+                }
+            }
+
+            // 2. 벡터 저장소에 저장
+            if (!IngestionStage.VECTOR_STORED.isReached(document.getCompletedStage())) {
+                document = updateStatus(document, DocumentStatus.EMBEDDING);
+                document.setChromaCollectionId(storeSpooledChunks(document));
+                document = checkpoint(document, IngestionStage.VECTOR_STORED);
+            }
+
+            // 3. 검색 인덱스에 적재
+            if (!IngestionStage.SEARCH_INDEXED.isReached(document.getCompletedStage())) {
+                document = updateStatus(document, DocumentStatus.INDEXING);
+                SearchIndexWriter searchIndexWriter = new SearchIndexWriter(document);
+                searchIndexWriter.setPageCount(document.getPageCount());
+                chunkSpool.forEachPage(documentId, searchIndexWriter::addPage);
+                document.setOpenSearchDocumentId(searchIndexWriter.finish());
+                document = checkpoint(document, IngestionStage.SEARCH_INDEXED);
+            }
+
+            // 완료 상태로 변경
+            document.setErrorMessage(null);
+            document = updateStatus(document, DocumentStatus.COMPLETED);
+            chunkSpool.delete(documentId);
+            syncDuplicates(document);
+
+            log.info("Document {} processed successfully", documentId);
+        } catch (Exception e) {
+            log.error("Error processing document {}", documentId, e);
+            // 저장된 체크포인트를 덮어쓰지 않도록 최신 상태를 다시 읽어 실패 처리
+            Document failed = documentRepository.findById(documentId).orElse(null);
+            if (failed == null) {
+                chunkSpool.delete(documentId);
+                pageTextStore.delete(documentId);
+                return;
+            }
+            failed.setErrorMessage(e.getMessage());
+            syncDuplicates(updateStatus(failed, DocumentStatus.FAILED));
+        }
+    }
+
+    /**
+     * 스풀 상태를 확인하여 재개 가능한 마지막 완료 단계를 반환 (스풀이 없으면 처음부터)
+     */
+    private IngestionStage resumableStage(Document document) {
+        IngestionStage stage = document.getCompletedStage();
+        if (stage == null || stage == IngestionStage.SEARCH_INDEXED) {
+            return stage;
+        }
+        if (!chunkSpool.hasPages(document.getId())) {
+            return null;
+        }
+        if (!IngestionStage.VECTOR_STORED.isReached(stage) && !chunkSpool.hasChunks(document.getId())) {
+            return IngestionStage.EXTRACTED;
+        }
+        return stage;
+    }
+
+    /**
+     * 페이지 단위 스트리밍: 추출, 스풀 기록, 벡터 저장소 저장, 페이지 단위 검색 적재가 동시에 진행
+     * 저장/인덱싱 중 하나가 실패해도 추출과 스풀 기록은 끝까지 진행하여, 재시도 시 실패한 단계만 다시 수행한다.
+     */
+    private Document ingestStreaming(Document document) throws Exception {
+        Long documentId = document.getId();
+        File pdfFile = new File(document.getFilePath());
+        String originalFileName = document.getOriginalFileName();
+
+        document = updateStatus(document, DocumentStatus.EXTRACTING);
+        SearchIndexWriter searchIndexWriter = new SearchIndexWriter(document);
+
+        TextChunker.Session chunking = pdfProcessor.openChunking();
+        String[] firstId = new String[1];
+        Exception[] vectorFailure = new Exception[1];
+        Exception[] searchFailure = new Exception[1];
+        int pageCount;
+
+        try (ChunkSpool.Writer spool = chunkSpool.openWriter(documentId);
+             PageTextStore.Writer pageText = pageTextStore.openWriter(documentId);
+             ChunkPipeline pipeline = new ChunkPipeline(chunkBatchSize, pipelineQueueCapacity,
+                 batch -> {
+                     String id = storeChunks(documentId, originalFileName, batch);
+                     if (firstId[0] == null) {
+                         firstId[0] = id;
+                     }
+                 }, chunkStoreExecutor)) {
+
+            pageCount = pdfProcessor.streamPages(pdfFile, searchIndexWriter::setPageCount, page -> {
+                spool.writePage(page);
+                pageText.writePage(page);
+                if (searchFailure[0] == null) {
+                    try {
+                        searchIndexWriter.addPage(page);
+                    } catch (RuntimeException e) {
+                        log.warn("Search indexing of document {} failed, continuing extraction: {}",
+                            documentId, e.getMessage());
+                        searchFailure[0] = e;
+                    }
+                }
+                for (PdfProcessor.TextChunk chunk : chunking.addPage(page)) {
+                    spool.writeChunk(chunk);
+                    if (vectorFailure[0] == null) {
+                        vectorFailure[0] = acceptChunk(pipeline, chunk, documentId);
+                    }
+                }
+            });
+            for (PdfProcessor.TextChunk chunk : chunking.finish()) {
+                spool.writeChunk(chunk);
+                if (vectorFailure[0] == null) {
+                    vectorFailure[0] = acceptChunk(pipeline, chunk, documentId);
+                }
+            }
+            pageText.commit();
+            spool.commitPages();
+            spool.commitChunks();
+
+            if (vectorFailure[0] == null) {
+                try {
+                    pipeline.complete();
+                } catch (InterruptedIOException e) {
+                    throw e;
+                } catch (IOException e) {
+                    vectorFailure[0] = e;
+                }
+            }
+        }
+
+        document.setPageCount(pageCount);
+        document = checkpoint(document, IngestionStage.EXTRACTED);
+        document = checkpoint(document, IngestionStage.CHUNKED);
+
+        if (vectorFailure[0] != null) {
+            throw new IOException("Failed to store chunks: " + vectorFailure[0].getMessage(), vectorFailure[0]);
+        }
+        document.setChromaCollectionId(firstId[0]);
+        document = checkpoint(document, IngestionStage.VECTOR_STORED);
+
+        if (searchFailure[0] != null) {
+            throw new IOException("Failed to index pages: " + searchFailure[0].getMessage(), searchFailure[0]);
+        }
+        document = updateStatus(document, DocumentStatus.INDEXING);
+        document.setOpenSearchDocumentId(searchIndexWriter.finish());
+        return checkpoint(document, IngestionStage.SEARCH_INDEXED);
+    }
+
+    /**
+     * 파이프라인에 청크 전달 (저장 실패 시 예외 대신 실패 원인을 반환)
+     */
+    private Exception acceptChunk(ChunkPipeline pipeline, PdfProcessor.TextChunk chunk, Long documentId)
+        throws InterruptedIOException {
+        try {
+            pipeline.accept(chunk);
+            return null;
+        } catch (InterruptedIOException e) {
+            throw e;
+        } catch (IOException e) {
+            log.warn("Chunk store of document {} failed, continuing extraction: {}", documentId, e.getMessage());
+            return e;
+        }
+    }
+
+    /**
+     * 문서 전체를 한 번에 추출하여 스풀에 기록 (비스트리밍 모드)
+     */
+    private Document extractToSpool(Document document) throws IOException {
+        document = updateStatus(document, DocumentStatus.EXTRACTING);
+        PdfProcessor.ExtractionResult extraction =
+            pdfProcessor.extract(new File(document.getFilePath()));
+
+        try (ChunkSpool.Writer spool = chunkSpool.openWriter(document.getId());
+             PageTextStore.Writer pageText = pageTextStore.openWriter(document.getId())) {
+            for (PdfProcessor.PageContent page : extraction.pages()) {
+                spool.writePage(page);
+                pageText.writePage(page);
+            }
+            pageText.commit();
+            spool.commitPages();
+            document.setPageCount(extraction.pageCount());
+            document = checkpoint(document, IngestionStage.EXTRACTED);
+
+            for (PdfProcessor.TextChunk chunk : extraction.chunks()) {
+                spool.writeChunk(chunk);
+            }
+            spool.commitChunks();
+        }
+        return checkpoint(document, IngestionStage.CHUNKED);
+    }
+
+    /**
+     * 스풀된 페이지에서 청크를 다시 생성 (PDF를 다시 읽지 않음)
+     */
+    private Document chunkSpooledPages(Document document) throws IOException {
+        document = updateStatus(document, DocumentStatus.EXTRACTING);
+        TextChunker.Session chunking = pdfProcessor.openChunking();
+        try (ChunkSpool.Writer spool = chunkSpool.openChunkWriter(document.getId())) {
+            chunkSpool.forEachPage(document.getId(), page -> {
+                for (PdfProcessor.TextChunk chunk : chunking.addPage(page)) {
+                    spool.writeChunk(chunk);
+                }
+            });
+            for (PdfProcessor.TextChunk chunk : chunking.finish()) {
+                spool.writeChunk(chunk);
+            }
+            spool.commitChunks();
+        }
+        return checkpoint(document, IngestionStage.CHUNKED);
+    }
+
+    /**
+     * 스풀된 청크를 배치 단위로 벡터 저장소에 저장
+     * @return 첫 번째 청크 ID (청크가 없으면 null)
+     */
+    private String storeSpooledChunks(Document document) throws Exception {
+        String[] firstId = new String[1];
+        chunkSpool.forEachChunkBatch(document.getId(), chunkBatchSize, batch -> {
+            String id = storeChunks(document.getId(), document.getOriginalFileName(), batch);
+            if (firstId[0] == null) {
+                firstId[0] = id;
+            }
+        });
+        return firstId[0];
+    }
+
+    /**
+     * 수집 단계 완료 기록
+     */
+    private Document checkpoint(Document document, IngestionStage stage) {
+        log.debug("Document {} checkpoint {}", document.getId(), stage);
+        document.setCompletedStage(stage);
+        document = documentRepository.save(document);
+        if (stage == IngestionStage.VECTOR_STORED) {
+            // 새 문서가 검색 대상이 되었으므로 캐시된 답변 무효화
+            answerCache.invalidateAll();
+        }
+        return document;
+    }
+
+    /**
+     * 이 문서를 참조하는 중복 업로드에 처리 결과 반영
+     */
+    private void syncDuplicates(Document original) {
+        for (Document duplicate : documentRepository.findByDuplicateOfOrderByIdAsc(original.getId())) {
+            duplicate.setPageCount(original.getPageCount());
+            duplicate.setChromaCollectionId(original.getChromaCollectionId());
+            duplicate.setOpenSearchDocumentId(original.getOpenSearchDocumentId());
+            duplicate.setErrorMessage(original.getErrorMessage());
+            updateStatus(duplicate, original.getStatus());
+        }
+    }
+
+    /**
+     * 청크 목록을 벡터 저장소에 저장
+     * @return 첫 번째 청크 ID (청크가 없으면 null)
+     */
+    private String storeChunks(Long documentId, String fileName, List<PdfProcessor.TextChunk> chunks) {
+        if (chunks.isEmpty()) {
+            return null;
+        }
+
+        List<String> texts = chunks.stream()
+            .map(chunk -> chunk.text().toString())
+            .collect(Collectors.toList());
+
+        List<Map<String, Object>> metadatas = chunks.stream()
+            .map(chunk -> {
+                Map<String, Object> metadata = new HashMap<>();
+                metadata.put("documentId", documentId);
+                metadata.put("fileName", fileName);
+                metadata.put("pageNumber", chunk.pageNumber());
+                metadata.put("endPageNumber", chunk.endPageNumber());
+                metadata.put("chunkIndex", chunk.chunkIndex());
+                return metadata;
+            })
+            .collect(Collectors.toList());
+
+        List<String> ids = chunks.stream()
+            .map(chunk -> documentId + "_" + chunk.pageNumber() + "_" + chunk.chunkIndex())
+            .collect(Collectors.toList());
+
+        vectorStore.addDocuments(texts, metadatas, ids);
+        return ids.get(0);
+    }
+
+    /**
+     * 검색 인덱스 적재기
+     * 페이지 단위 모드에서는 페이지마다 문서 공통 필드를 복사한 항목을 _bulk로 적재하고,
+     * 문서 단위 모드에서는 전체 텍스트를 모아 하나의 항목으로 인덱싱한다.
+     */
+    private final class SearchIndexWriter {
+
+        private final Long documentId;
+        private final Map<String, Object> documentFields = new HashMap<>();
+        private final KeywordIndex.BulkWriter bulkWriter;
+        private final StringBuilder fullText;
+
+        SearchIndexWriter(Document document) {
+            this.documentId = document.getId();
+            documentFields.put("documentId", documentId);
+            documentFields.put("fileName", document.getOriginalFileName());
+            documentFields.put("description", document.getDescription());
+            documentFields.put("uploadedBy", document.getUploadedBy());
+            documentFields.put("createdAt",
+                document.getCreatedAt() != null ? document.getCreatedAt().toString() : null);
+
+            this.bulkWriter = pageLevelIndexing ? keywordIndex.bulkWriter() : null;
+            this.fullText = pageLevelIndexing ? null : new StringBuilder();
+        }
+
+        void setPageCount(int pageCount) {
+            documentFields.put("pageCount", pageCount);
+        }
+
+        void addPage(PdfProcessor.PageContent page) {
+            if (bulkWriter == null) {
+                fullText.append(page.text());
+                return;
+            }
+            if (page.text().isBlank()) {
+                return;
+            }
+
+            Map<String, Object> entry = new HashMap<>(documentFields);
+            entry.put("pageNumber", page.pageNumber());
+            entry.put("content", page.text());
+            bulkWriter.add(documentId + "_p" + page.pageNumber(), entry, page.text().length());
+        }
+
+        /**
+         * 남은 항목을 적재하고 검색 문서 ID를 반환
+         */
+        String finish() {
+            if (bulkWriter == null) {
+                Map<String, Object> searchDocument = new HashMap<>(documentFields);
+                searchDocument.put("content", fullText.toString());
+                return keywordIndex.indexDocument(documentId.toString(), searchDocument);
+            }
+
+            int indexed = bulkWriter.finish();
+            log.debug("Indexed {} page entries for document {}", indexed, documentId);
+            return documentId.toString();
+        }
+    }
+
+    /**
+     * 처리 단계 전환 (각 저장은 개별 트랜잭션으로 즉시 커밋)
+     */
+    private Document updateStatus(Document document, DocumentStatus status) {
+        log.debug("Document {} -> {}", document.getId(), status);
+        document.setStatus(status);
+        return documentRepository.save(document);
+    }
+}
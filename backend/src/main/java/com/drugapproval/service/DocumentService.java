@@ -1,26 +1,34 @@
 package com.drugapproval.service;
 
 import com.drugapproval.dto.DocumentDto;
+import com.drugapproval.dto.PageTextDto;
 import com.drugapproval.entity.Document;
 import com.drugapproval.entity.Document.DocumentStatus;
+import com.drugapproval.exception.TooManyRequestsException;
 import com.drugapproval.repository.DocumentRepository;
-import com.drugapproval.util.PdfProcessor;
+import com.drugapproval.util.ChunkSpool;
+import com.drugapproval.util.PageTextStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * 문서 관리 서비스
@@ -30,18 +38,27 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class DocumentService {
 
+    /** 중복 업로드의 원본이 될 수 있는 상태 (실패한 문서는 제외) */
+    private static final Set<DocumentStatus> DEDUP_STATUSES = Collections.unmodifiableSet(
+        EnumSet.of(DocumentStatus.UPLOADING, DocumentStatus.PROCESSING, DocumentStatus.EXTRACTING,
+            DocumentStatus.EMBEDDING, DocumentStatus.INDEXING, DocumentStatus.COMPLETED));
+
     private final DocumentRepository documentRepository;
-    private final PdfProcessor pdfProcessor;
-    private final ChromaService chromaService;
-    private final OpenSearchService openSearchService;
+    private final VectorStore vectorStore;
+    private final KeywordIndex keywordIndex;
+    private final DocumentIngestionService documentIngestionService;
+    private final ChunkSpool chunkSpool;
+    private final PageTextStore pageTextStore;
+    private final AnswerCache answerCache;
 
     @Value("${app.upload.directory}")
     private String uploadDirectory;
 
     /**
-     * 문서 업로드 및 처리
+     * 문서 업로드
+     * 파일을 디스크에 저장한 뒤 즉시 반환하고, 실제 처리는 수집 작업 큐에서 비동기로 수행한다.
+     * 이미 처리되었거나 처리 중인 문서와 내용(SHA-256)이 같으면 처리 없이 원본 문서의 인덱싱 결과를 참조한다.
      */
-    @Transactional
     public DocumentDto uploadDocument(MultipartFile file, String uploadedBy, String description) {
         try {
             // 업로드 디렉토리 생성
@@ -50,10 +67,18 @@ public class DocumentService {
                 Files.createDirectories(uploadPath);
             }
 
-            // 파일 저장
+            // 파일 저장 (저장하면서 내용 해시 계산)
             String fileName = UUID.randomUUID().toString() + "_" + file.getOriginalFilename();
             Path filePath = uploadPath.resolve(fileName);
-            file.transferTo(filePath.toFile());
+            String contentHash = storeFile(file, filePath);
+
+            // 중복 업로드: 처리 완료되었거나 처리 중인 원본을 참조 (처리 중이면 원본 완료 시 결과가 반영됨)
+            Optional<Document> original = documentRepository
+                .findFirstByContentHashAndStatusInAndDuplicateOfIsNullOrderByIdAsc(contentHash, DEDUP_STATUSES);
+            if (original.isPresent()) {
+                Files.deleteIfExists(filePath);
+                return DocumentDto.fromEntity(saveDuplicate(original.get(), file, uploadedBy, description));
+            }
 
             // 문서 엔티티 생성
             Document document = Document.builder()
@@ -66,20 +91,23 @@ public class DocumentService {
                 .pageCount(0)
                 .uploadedBy(uploadedBy)
                 .status(DocumentStatus.UPLOADING)
+                .contentHash(contentHash)
                 .build();
 
             document = documentRepository.save(document);
 
-            // 비동기로 PDF 처리 (실제로는 별도 스레드나 큐 사용 권장)
+            // 수집 작업 큐에 등록 (큐가 가득 차면 업로드를 되돌리고 429 응답)
             try {
-                processDocument(document.getId());
-            } catch (Exception e) {
-                log.error("Error processing document {}, but upload was successful", document.getId(), e);
-                // 문서 처리 실패 시에도 업로드는 성공으로 처리
-                // 문서 상태는 processDocument 내부에서 FAILED로 변경됨
+                documentIngestionService.enqueue(document.getId());
+            } catch (TooManyRequestsException e) {
+                documentRepository.delete(document);
+                Files.deleteIfExists(filePath);
+                throw e;
             }
 
             return DocumentDto.fromEntity(document);
+        } catch (TooManyRequestsException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error uploading document", e);
             throw new RuntimeException("Failed to upload document", e);
@@ -87,74 +115,53 @@ public class DocumentService {
     }
 
     /**
-     * 문서 처리 (PDF 추출, 벡터DB 저장, 검색 인덱싱)
+     * 업로드 파일을 디스크로 스트리밍하면서 SHA-256 계산
+     * @return 내용 해시 (hex)
      */
-    @Transactional
-    public void processDocument(Long documentId) {
-        Document document = documentRepository.findById(documentId)
-            .orElseThrow(() -> new RuntimeException("Document not found"));
+    private String storeFile(MultipartFile file, Path filePath) throws IOException, NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+            Files.copy(in, filePath);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
 
-        try {
-            document.setStatus(DocumentStatus.PROCESSING);
-            documentRepository.save(document);
-
-            File pdfFile = new File(document.getFilePath());
-
-            // PDF 페이지 수 추출
-            int pageCount = pdfProcessor.getPageCount(pdfFile);
-            document.setPageCount(pageCount);
-
-            // PDF 텍스트 추출 (청크 단위)
-            List<PdfProcessor.TextChunk> chunks = pdfProcessor.extractChunks(pdfFile, 1000, 200);
-
-            // ChromaDB에 저장
-            List<String> texts = chunks.stream()
-                .map(PdfProcessor.TextChunk::text)
-                .collect(Collectors.toList());
-
-            List<Map<String, Object>> metadatas = chunks.stream()
-                .map(chunk -> {
-                    Map<String, Object> metadata = new HashMap<>();
-                    metadata.put("documentId", document.getId());
-                    metadata.put("fileName", document.getOriginalFileName());
-                    metadata.put("pageNumber", chunk.pageNumber());
-                    metadata.put("chunkIndex", chunk.chunkIndex());
-                    return metadata;
-                })
-                .collect(Collectors.toList());
-
-            List<String> ids = chunks.stream()
-                .map(chunk -> document.getId() + "_" + chunk.pageNumber() + "_" + chunk.chunkIndex())
-                .collect(Collectors.toList());
-
-            chromaService.addDocuments(texts, metadatas, ids);
-            document.setChromaCollectionId(ids.get(0));
-
-            // OpenSearch에 인덱싱
-            String fullText = pdfProcessor.extractAllText(pdfFile);
-            Map<String, Object> searchDocument = new HashMap<>();
-            searchDocument.put("documentId", document.getId());
-            searchDocument.put("fileName", document.getOriginalFileName());
-            searchDocument.put("description", document.getDescription());
-            searchDocument.put("content", fullText);
-            searchDocument.put("pageCount", pageCount);
-            searchDocument.put("uploadedBy", document.getUploadedBy());
-            searchDocument.put("createdAt", document.getCreatedAt());
-
-            String searchDocId = openSearchService.indexDocument(document.getId().toString(), searchDocument);
-            document.setOpenSearchDocumentId(searchDocId);
-
-            // 완료 상태로 변경
-            document.setStatus(DocumentStatus.COMPLETED);
-            documentRepository.save(document);
-
-            log.info("Document {} processed successfully", document.getId());
-        } catch (Exception e) {
-            log.error("Error processing document {}", documentId, e);
-            document.setStatus(DocumentStatus.FAILED);
-            document.setErrorMessage(e.getMessage());
-            documentRepository.save(document);
+    /**
+     * 중복 업로드 등록 (파일과 인덱싱 결과는 원본 문서의 것을 공유, 상태는 원본을 따름)
+     */
+    private Document saveDuplicate(Document original, MultipartFile file, String uploadedBy, String description) {
+        Document duplicate = Document.builder()
+            .fileName(original.getFileName())
+            .originalFileName(file.getOriginalFilename())
+            .filePath(original.getFilePath())
+            .fileSize(file.getSize())
+            .mimeType(file.getContentType())
+            .description(description)
+            .pageCount(original.getPageCount())
+            .chromaCollectionId(original.getChromaCollectionId())
+            .openSearchDocumentId(original.getOpenSearchDocumentId())
+            .uploadedBy(uploadedBy)
+            .status(original.getStatus())
+            .contentHash(original.getContentHash())
+            .duplicateOf(original.getId())
+            .build();
+
+        duplicate = documentRepository.save(duplicate);
+
+        // 조회 이후 원본 처리가 끝났으면 완료 시점의 중복 동기화가 이 문서를 놓쳤을 수 있으므로 최신 결과 반영
+        if (DocumentStatus.IN_PROGRESS.contains(duplicate.getStatus())) {
+            Document latest = documentRepository.findById(original.getId()).orElse(original);
+            if (!DocumentStatus.IN_PROGRESS.contains(latest.getStatus())) {
+                duplicate.setPageCount(latest.getPageCount());
+                duplicate.setChromaCollectionId(latest.getChromaCollectionId());
+                duplicate.setOpenSearchDocumentId(latest.getOpenSearchDocumentId());
+                duplicate.setErrorMessage(latest.getErrorMessage());
+                duplicate.setStatus(latest.getStatus());
+                duplicate = documentRepository.save(duplicate);
+            }
         }
+        log.info("Document {} is a duplicate of {}, skipping processing", duplicate.getId(), original.getId());
+        return duplicate;
     }
 
     /**
@@ -182,32 +189,90 @@ public class DocumentService {
         return DocumentDto.fromEntity(document);
     }
 
+    /**
+     * 페이지 텍스트 조회 (수집 시 기록한 페이지 텍스트 파일에서 읽으며 PDF를 열지 않음)
+     * 페이지 텍스트 파일 없이 처리가 끝난 문서는 수집 워커에서 파일을 한 번 만들도록 등록하고 빈 값을 반환한다.
+     * 중복 업로드는 원본 문서의 페이지 텍스트를 사용한다.
+     * @return 페이지 텍스트 (페이지 텍스트 파일을 준비 중이면 empty)
+     */
+    public Optional<PageTextDto> getPageText(Long id, int pageNumber) {
+        Document document = documentRepository.findById(id)
+            .orElseThrow(() -> new RuntimeException("Document not found"));
+        Long sourceId = document.getDuplicateOf() != null ? document.getDuplicateOf() : id;
+
+        try {
+            if (!pageTextStore.exists(sourceId)) {
+                if (document.getStatus() != DocumentStatus.COMPLETED) {
+                    throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "아직 텍스트가 추출되지 않은 문서입니다. (현재 상태: " + document.getStatus() + ")");
+                }
+                documentIngestionService.backfillPageText(sourceId, new File(document.getFilePath()));
+                return Optional.empty();
+            }
+
+            PageTextStore.PageText page = pageTextStore.readPage(sourceId, pageNumber);
+            if (page == null) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "페이지를 찾을 수 없습니다: " + pageNumber);
+            }
+            return Optional.of(PageTextDto.builder()
+                .documentId(id)
+                .pageNumber(page.pageNumber())
+                .pageCount(page.pageCount())
+                .text(page.text())
+                .build());
+        } catch (IOException e) {
+            log.error("Error reading page {} of document {}", pageNumber, id, e);
+            throw new RuntimeException("Failed to read page text", e);
+        }
+    }
+
     /**
      * 문서 삭제
+     * 수집 중인 원본 문서는 삭제할 수 없다. (워커가 삭제 이후에도 인덱스 항목과 문서 행을 다시 기록하므로)
      */
     @Transactional
     public void deleteDocument(Long id) {
-        Document document = documentRepository.findById(id)
+        Document document = documentRepository.findByIdForUpdate(id)
             .orElseThrow(() -> new RuntimeException("Document not found"));
 
-        try {
-            // 파일 시스템에서 삭제
-            Path filePath = Paths.get(document.getFilePath());
-            Files.deleteIfExists(filePath);
+        if (document.getDuplicateOf() == null && DocumentStatus.IN_PROGRESS.contains(document.getStatus())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                "처리 중인 문서는 삭제할 수 없습니다. (현재 상태: " + document.getStatus() + ")");
+        }
 
-            // ChromaDB에서 삭제
-            if (document.getChromaCollectionId() != null) {
-                chromaService.deleteDocuments(List.of(document.getChromaCollectionId()));
+        try {
+            // 중복 업로드는 원본의 파일과 인덱스를 공유하므로 레코드만 삭제
+            if (document.getDuplicateOf() != null) {
+                documentRepository.delete(document);
+                log.info("Duplicate document {} deleted", id);
+                return;
             }
 
-            // OpenSearch에서 삭제
-            if (document.getOpenSearchDocumentId() != null) {
-                openSearchService.deleteDocument(document.getOpenSearchDocumentId());
+            // 벡터 저장소/검색 인덱스에서 삭제 (문서 단위/페이지 단위 항목 모두)
+            // 실패한 문서도 일부 청크가 이미 색인되었을 수 있으므로 ID 기록 여부와 관계없이 삭제
+            vectorStore.deleteByDocumentId(document.getId());
+            keywordIndex.deleteByDocumentId(document.getId());
+
+            // 수집 중간 결과 및 페이지 텍스트 삭제 (진행 중인 페이지 텍스트 생성을 기다리고 삭제가 끝날 때까지 새 생성을 막음)
+            documentIngestionService.blockPageTextBackfill(id);
+            chunkSpool.delete(id);
+            pageTextStore.delete(id);
+
+            // 이 문서를 참조하는 중복 업로드가 있으면 첫 번째를 원본으로 승격하여 다시 처리,
+            // 없으면 파일 시스템에서 삭제
+            List<Document> duplicates = documentRepository.findByDuplicateOfOrderByIdAsc(id);
+            if (!duplicates.isEmpty()) {
+                promoteDuplicate(duplicates);
+            } else {
+                Files.deleteIfExists(Paths.get(document.getFilePath()));
             }
 
             // DB에서 삭제
             documentRepository.delete(document);
 
+            // 삭제된 문서를 근거로 한 캐시 답변 무효화
+            answerCache.invalidateAll();
+
             log.info("Document {} deleted successfully", id);
         } catch (Exception e) {
             log.error("Error deleting document {}", id, e);
@@ -215,6 +280,48 @@ public class DocumentService {
         }
     }
 
+    /**
+     * 실패한 문서 재처리 (마지막으로 완료된 수집 단계 다음부터 재개)
+     * 중복 업로드는 원본 문서를 재처리한다.
+     */
+    public DocumentDto retryDocument(Long id) {
+        Document document = documentRepository.findById(id)
+            .orElseThrow(() -> new RuntimeException("Document not found"));
+        Document target = document.getDuplicateOf() == null ? document
+            : documentRepository.findById(document.getDuplicateOf())
+                .orElseThrow(() -> new RuntimeException("Document not found"));
+
+        if (target.getStatus() != DocumentStatus.FAILED) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                "실패한 문서만 재처리할 수 있습니다. (현재 상태: " + target.getStatus() + ")");
+        }
+
+        target = documentIngestionService.retry(target);
+        return DocumentDto.fromEntity(target.getId().equals(id) ? target : document);
+    }
+
+    /**
+     * 원본 삭제 시 첫 번째 중복 업로드를 새 원본으로 승격
+     * 인덱스 항목은 원본 문서 ID로 저장되어 있으므로 승격된 문서는 커밋 후 다시 처리한다.
+     */
+    private void promoteDuplicate(List<Document> duplicates) {
+        Document promoted = duplicates.get(0);
+        promoted.setDuplicateOf(null);
+        promoted.setChromaCollectionId(null);
+        promoted.setOpenSearchDocumentId(null);
+        promoted.setStatus(DocumentStatus.UPLOADING);
+        documentRepository.save(promoted);
+
+        for (Document duplicate : duplicates.subList(1, duplicates.size())) {
+            duplicate.setDuplicateOf(promoted.getId());
+            duplicate.setStatus(DocumentStatus.UPLOADING);
+            documentRepository.save(duplicate);
+        }
+
+        documentIngestionService.enqueueAfterCommit(promoted.getId());
+        log.info("Promoted duplicate document {} to original ({} references)", promoted.getId(), duplicates.size() - 1);
+    }
+
     /**
      * 문서 파일 다운로드
      */
@@ -0,0 +1,264 @@
+package com.drugapproval.service;
+
+import com.drugapproval.util.Bm25Index;
+import com.drugapproval.util.KoreanTokenizer;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 내장 키워드 검색 인덱스 (app.keyword-index.type=embedded)
+ * OpenSearch 없이 프로세스 안의 BM25 역색인(Bm25Index)으로 content/fileName/description을 검색한다.
+ * 적재기는 문서 하나의 페이지를 모아 세그먼트 하나로 기록하고(buffer-max-chars를 넘으면 나누어 기록),
+ * 본문 조각은 질문 토큰이 가장 많이 모인 구간을 잘라 돌려준다.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.keyword-index.type", havingValue = "embedded")
+@RequiredArgsConstructor
+public class EmbeddedKeywordIndex implements KeywordIndex {
+
+    private static final String[] FIELDS = {"content", "fileName", "description"};
+    private static final float[] SEARCH_BOOSTS = {1, 1, 1};
+    /** searchPassages는 OpenSearch 쿼리와 같이 fileName^2 */
+    private static final float[] PASSAGE_BOOSTS = {1, 2, 1};
+    private static final TypeReference<Map<String, Object>> SOURCE_TYPE = new TypeReference<>() {
+    };
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.keyword-index.directory:${app.upload.directory}/.keywords}")
+    private String directory;
+
+    @Value("${app.keyword-index.max-segments:10}")
+    private int maxSegments;
+
+    @Value("${app.keyword-index.buffer-max-chars:20000000}")
+    private long bufferMaxChars;
+
+    @Value("${app.keyword-index.bm25.k1:1.2}")
+    private double k1;
+
+    @Value("${app.keyword-index.bm25.b:0.75}")
+    private double b;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Bm25Index index;
+
+    @PostConstruct
+    public void open() throws IOException {
+        index = Bm25Index.open(Paths.get(directory), FIELDS.length, maxSegments, k1, b);
+        log.info("Embedded keyword index opened at {} ({} entries, {} segments)",
+            directory, index.size(), index.segmentCount());
+    }
+
+    /**
+     * 문서 인덱싱
+     */
+    @Override
+    public String indexDocument(String id, Map<String, Object> document) {
+        try {
+            add(List.of(toDoc(id, document)));
+            log.info("Document indexed with id: {}", id);
+            return id;
+        } catch (Exception e) {
+            log.error("Error indexing document", e);
+            throw new RuntimeException("Failed to index document", e);
+        }
+    }
+
+    @Override
+    public BulkWriter bulkWriter() {
+        return new EmbeddedBulkWriter();
+    }
+
+    /**
+     * 문서 검색
+     */
+    @Override
+    public List<Map<String, Object>> search(String queryText, int size) {
+        try {
+            List<Map<String, Object>> results = new ArrayList<>();
+            for (Bm25Index.Hit hit : find(queryText, size, SEARCH_BOOSTS)) {
+                Map<String, Object> result = source(hit);
+                result.put("_id", hit.id());
+                result.put("_score", hit.score());
+                results.add(result);
+            }
+            return results;
+        } catch (Exception e) {
+            log.error("Error searching documents", e);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * 본문 키워드 검색 (본문 조각 포함)
+     */
+    @Override
+    public List<Map<String, Object>> searchPassages(String queryText, int size, int fragmentSize) throws IOException {
+        Set<String> queryTerms = new HashSet<>();
+        for (KoreanTokenizer.Token token : KoreanTokenizer.tokenize(queryText)) {
+            queryTerms.add(token.term());
+        }
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (Bm25Index.Hit hit : find(queryText, size, PASSAGE_BOOSTS)) {
+            Map<String, Object> result = source(hit);
+            Object content = result.remove("content");
+            result.put("_id", hit.id());
+            result.put("_score", hit.score());
+            result.put("_passage", content != null ? passage(content.toString(), queryTerms, fragmentSize) : "");
+            results.add(result);
+        }
+        return results;
+    }
+
+    /**
+     * 원본 문서 ID로 인덱싱된 모든 항목 삭제
+     */
+    @Override
+    public void deleteByDocumentId(Long documentId) {
+        lock.writeLock().lock();
+        try {
+            int deleted = index.deleteByDocumentId(documentId);
+            log.info("Deleted {} indexed entries for document {}", deleted, documentId);
+        } catch (Exception e) {
+            log.error("Error deleting indexed entries for document {}", documentId, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<Bm25Index.Hit> find(String queryText, int size, float[] boosts) {
+        lock.readLock().lock();
+        try {
+            return index.search(queryText, size, boosts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(List<Bm25Index.Doc> docs) throws IOException {
+        lock.writeLock().lock();
+        try {
+            index.add(docs);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Bm25Index.Doc toDoc(String id, Map<String, Object> document) throws IOException {
+        String[] fields = new String[FIELDS.length];
+        for (int i = 0; i < FIELDS.length; i++) {
+            Object value = document.get(FIELDS[i]);
+            fields[i] = value != null ? value.toString() : null;
+        }
+        Object documentId = document.get("documentId");
+        return new Bm25Index.Doc(id, documentId instanceof Number number ? number.longValue() : -1, fields,
+            objectMapper.writeValueAsBytes(document));
+    }
+
+    private Map<String, Object> source(Bm25Index.Hit hit) throws IOException {
+        return new HashMap<>(objectMapper.readValue(hit.stored(), SOURCE_TYPE));
+    }
+
+    /**
+     * 질문 토큰이 가장 많이 들어 있는 fragmentSize 문자 구간 (일치하는 토큰이 없으면 앞부분)
+     * 구간 시작은 일치 토큰 조금 앞의 공백/문장 경계로 맞춘다.
+     */
+    static String passage(String content, Set<String> queryTerms, int fragmentSize) {
+        if (content.length() <= fragmentSize) {
+            return content;
+        }
+        List<Integer> matches = new ArrayList<>();
+        for (KoreanTokenizer.Token token : KoreanTokenizer.tokenize(content)) {
+            if (queryTerms.contains(token.term())) {
+                matches.add(token.start());
+            }
+        }
+
+        int start = 0;
+        if (!matches.isEmpty()) {
+            int best = 0;
+            int bestCount = 0;
+            int end = 0;
+            for (int i = 0; i < matches.size(); i++) {
+                while (end < matches.size() && matches.get(end) < matches.get(i) + fragmentSize * 4 / 5) {
+                    end++;
+                }
+                if (end - i > bestCount) {
+                    bestCount = end - i;
+                    best = i;
+                }
+            }
+            start = Math.min(Math.max(0, matches.get(best) - fragmentSize / 5), content.length() - fragmentSize);
+            int limit = Math.max(0, start - fragmentSize / 10);
+            while (start > limit && !Character.isWhitespace(content.charAt(start - 1))) {
+                start--;
+            }
+        }
+        return content.substring(start, Math.min(content.length(), start + fragmentSize)).strip();
+    }
+
+    /**
+     * 페이지 단위 적재기 (누적 본문이 buffer-max-chars를 넘거나 끝날 때 세그먼트로 기록)
+     */
+    private final class EmbeddedBulkWriter implements BulkWriter {
+
+        private List<Bm25Index.Doc> pending = new ArrayList<>();
+        private long pendingChars;
+        private int indexedCount;
+
+        @Override
+        public void add(String id, Map<String, Object> document, int contentLength) {
+            try {
+                pending.add(toDoc(id, document));
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to index document " + id, e);
+            }
+            pendingChars += contentLength;
+            if (pendingChars >= bufferMaxChars) {
+                flush();
+            }
+        }
+
+        @Override
+        public int finish() {
+            flush();
+            return indexedCount;
+        }
+
+        private void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            try {
+                EmbeddedKeywordIndex.this.add(pending);
+            } catch (IOException e) {
+                log.error("Error bulk indexing documents", e);
+                throw new RuntimeException("Failed to bulk index documents", e);
+            }
+            indexedCount += pending.size();
+            pending = new ArrayList<>();
+            pendingChars = 0;
+        }
+    }
+}
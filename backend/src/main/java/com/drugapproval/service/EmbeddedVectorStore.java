@@ -0,0 +1,666 @@
+package com.drugapproval.service;
+
+import com.drugapproval.dto.StatisticsDto;
+import com.drugapproval.util.HnswIndex;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.util.retry.Retry;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 내장 벡터 저장소 (app.vector-store.type=embedded)
+ * ChromaDB 서버 없이 프로세스 안의 HNSW 인덱스로 청크를 검색한다. 임베딩은 Ollama로 계산하고,
+ * 벡터/그래프는 HnswIndex, 청크 본문은 documents.dat, ID/메타데이터/삭제 표시는 records.jsonl에 추가 기록한다.
+ * 그래프는 graph-save-nodes개 노드가 추가될 때마다와 종료 시에만 저장하며, 저장 전에 끊긴 노드는 시작 시 다시 연결한다.
+ * 삭제된 청크는 검색 결과에서만 제외하고, 시작 시 삭제 비율이 compact-deleted-ratio를 넘으면 인덱스를 다시 만든다.
+ * quantization=int8이면 그래프 탐색을 int8 코드로 하고 상위 후보만 float 벡터로 다시 정렬하며,
+ * recall-sample-rate 비율의 검색마다 전체 비교 결과와 견주어 재현율을 측정한다.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.vector-store.type", havingValue = "embedded")
+@RequiredArgsConstructor
+public class EmbeddedVectorStore implements VectorStore {
+
+    private static final String TEXTS_FILE = "documents.dat";
+    private static final String RECORDS_FILE = "records.jsonl";
+    private static final int COMPACT_BATCH_SIZE = 1000;
+    private static final String QUANTIZATION_NONE = "none";
+    private static final String QUANTIZATION_INT8 = "int8";
+
+    private final OllamaService ollamaService;
+    private final EmbeddingService embeddingService;
+    private final ObjectMapper objectMapper;
+
+    @Qualifier("queryIoScheduler")
+    private final Scheduler queryIoScheduler;
+
+    @Value("${app.vector-store.directory:${app.upload.directory}/.vectors}")
+    private String directory;
+
+    @Value("${app.vector-store.hnsw.m:16}")
+    private int m;
+
+    @Value("${app.vector-store.hnsw.ef-construction:200}")
+    private int efConstruction;
+
+    @Value("${app.vector-store.hnsw.ef-search:64}")
+    private int efSearch;
+
+    @Value("${app.vector-store.embed-batch-size:64}")
+    private int embedBatchSize;
+
+    @Value("${app.vector-store.embed-concurrency:2}")
+    private int embedConcurrency;
+
+    @Value("${app.vector-store.max-batch-retries:3}")
+    private int maxBatchRetries;
+
+    @Value("${app.vector-store.graph-save-nodes:10000}")
+    private int graphSaveNodes;
+
+    @Value("${app.vector-store.compact-deleted-ratio:0.3}")
+    private double compactDeletedRatio;
+
+    @Value("${app.vector-store.quantization:none}")
+    private String quantization;
+
+    @Value("${app.vector-store.rescore-multiplier:4}")
+    private int rescoreMultiplier;
+
+    @Value("${app.vector-store.recall-sample-rate:0.01}")
+    private double recallSampleRate;
+
+    private final AtomicLong recallSamples = new AtomicLong();
+    private final DoubleAdder recallSum = new DoubleAdder();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    /** 그래프 저장 직렬화 (저장은 읽기 잠금으로 추가만 막고 검색은 계속 허용) */
+    private final Object graphSaveLock = new Object();
+    private Storage storage;
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!QUANTIZATION_NONE.equals(quantization) && !QUANTIZATION_INT8.equals(quantization)) {
+            throw new IllegalArgumentException("Unknown vector quantization: " + quantization);
+        }
+        Path path = Paths.get(directory);
+        recoverCompaction(path);
+        storage = new Storage(path);
+        if (storage.deleted > 0 && storage.deleted >= storage.entries.size() * compactDeletedRatio) {
+            compact(path);
+        }
+        log.info("Embedded vector store opened at {} ({} chunks, {} deleted)",
+            path, storage.entries.size() - storage.deleted, storage.deleted);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            storage.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 문서 임베딩 추가
+     * 임베딩을 배치 단위로 최대 embed-concurrency개까지 동시에 계산한 뒤 한 번에 기록한다.
+     */
+    @Override
+    public void addDocuments(List<String> texts, List<Map<String, Object>> metadatas, List<String> ids) {
+        List<Integer> pending = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Set<String> seen = new HashSet<>();
+            for (int i = 0; i < ids.size(); i++) {
+                if (!storage.ordinals.containsKey(ids.get(i)) && seen.add(ids.get(i))) {
+                    pending.add(i);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        long startTime = System.currentTimeMillis();
+        try {
+            int size = Math.max(1, embedBatchSize);
+            List<String> pendingTexts = pending.stream().map(texts::get).toList();
+            List<float[]> vectors = Flux.range(0, (pendingTexts.size() + size - 1) / size)
+                .flatMapSequential(batch -> ollamaService.embedBatch(
+                        pendingTexts.subList(batch * size, Math.min((batch + 1) * size, pendingTexts.size())))
+                    .retryWhen(Retry.backoff(maxBatchRetries, Duration.ofMillis(500))
+                        .doBeforeRetry(signal -> log.warn("Retrying embedding of batch {} (attempt {}): {}",
+                            batch, signal.totalRetries() + 1, signal.failure().getMessage()))),
+                    Math.max(1, embedConcurrency))
+                .concatMapIterable(embeddings -> embeddings)
+                .collectList()
+                .block();
+
+            lock.writeLock().lock();
+            try {
+                List<String> addedIds = new ArrayList<>(pending.size());
+                List<String> addedTexts = new ArrayList<>(pending.size());
+                List<Map<String, Object>> addedMetadatas = new ArrayList<>(pending.size());
+                List<float[]> addedVectors = new ArrayList<>(pending.size());
+                for (int i = 0; i < pending.size(); i++) {
+                    int index = pending.get(i);
+                    // 임베딩 계산 중 같은 ID가 먼저 추가되었으면 건너뜀
+                    if (!storage.ordinals.containsKey(ids.get(index))) {
+                        addedIds.add(ids.get(index));
+                        addedTexts.add(texts.get(index));
+                        addedMetadatas.add(metadatas.get(index));
+                        addedVectors.add(vectors.get(i));
+                    }
+                }
+                storage.append(addedIds, addedTexts, addedMetadatas, addedVectors);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            saveGraphIfNeeded();
+
+            log.info("Added {} documents to embedded vector store ({}ms)",
+                pending.size(), System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            log.error("Error adding documents to embedded vector store", e);
+            throw new RuntimeException("Failed to add documents to embedded vector store", e);
+        }
+    }
+
+    /**
+     * 마지막 저장 이후 graph-save-nodes개 이상 추가되었으면 그래프 저장
+     * (매 배치마다 전체 그래프를 다시 쓰지 않도록 하며, 그 사이에 종료되면 시작 시 recover가 다시 연결)
+     */
+    private void saveGraphIfNeeded() throws IOException {
+        lock.readLock().lock();
+        try {
+            synchronized (graphSaveLock) {
+                if (storage.unsavedNodes() >= Math.max(1, graphSaveNodes)) {
+                    storage.saveGraph();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 유사 문서 검색 (질문 임베딩은 캐시 사용, 그래프 탐색은 질의 전용 스케줄러에서 실행)
+     */
+    @Override
+    public Mono<List<SearchResult>> query(String queryText, int nResults) {
+        return embeddingService.embedAsync(queryText)
+            .publishOn(queryIoScheduler)
+            .map(vector -> {
+                List<SearchResult> results = search(vector, nResults);
+                if (recallSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < recallSampleRate) {
+                    queryIoScheduler.schedule(() -> measureRecall(vector, nResults, results));
+                }
+                return results;
+            });
+    }
+
+    /**
+     * 근사 검색 결과 중 전체 비교(정확한 검색) 상위 결과에 포함된 비율 기록
+     */
+    private void measureRecall(float[] vector, int nResults, List<SearchResult> results) {
+        Set<String> exact = new HashSet<>();
+        lock.readLock().lock();
+        try {
+            if (storage.index == null) {
+                return;
+            }
+            for (HnswIndex.Neighbor neighbor : storage.index.exactSearch(vector, nResults,
+                node -> !storage.entries.get(node).deleted)) {
+                exact.add(storage.entries.get(neighbor.node()).id);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (exact.isEmpty()) {
+            return;
+        }
+        long found = results.stream().filter(result -> exact.contains(result.getId())).count();
+        double recall = (double) found / exact.size();
+        recallSum.add(recall);
+        recallSamples.incrementAndGet();
+        log.debug("Vector search recall@{}: {} ({} quantization)", nResults, recall, quantization);
+    }
+
+    @Override
+    public StatisticsDto.VectorStoreStatistics getStatistics() {
+        lock.readLock().lock();
+        try {
+            long samples = recallSamples.get();
+            return StatisticsDto.VectorStoreStatistics.builder()
+                .type("embedded")
+                .chunkCount((long) storage.entries.size() - storage.deleted)
+                .deletedCount((long) storage.deleted)
+                .dimension(storage.index != null ? storage.index.dimension() : null)
+                .quantization(quantization)
+                .bytesPerVector(storage.index != null ? storage.index.bytesPerVector() : null)
+                .recallSamples(samples)
+                .averageRecall(samples > 0 ? recallSum.sum() / samples : null)
+                .build();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<SearchResult> search(float[] vector, int nResults) {
+        lock.readLock().lock();
+        try {
+            if (storage.index == null) {
+                return List.of();
+            }
+            // 삭제 표시된 노드를 지나가느라 결과가 모자라지 않도록 삭제 비율만큼 탐색 폭을 늘림
+            int live = Math.max(1, storage.entries.size() - storage.deleted);
+            int ef = (int) Math.min((long) Math.max(efSearch, nResults) * storage.entries.size() / live,
+                storage.entries.size());
+            List<HnswIndex.Neighbor> neighbors = storage.index.search(vector, nResults, ef, rescoreMultiplier,
+                node -> !storage.entries.get(node).deleted);
+
+            List<SearchResult> results = new ArrayList<>(neighbors.size());
+            for (HnswIndex.Neighbor neighbor : neighbors) {
+                Entry entry = storage.entries.get(neighbor.node());
+                SearchResult result = new SearchResult();
+                result.setId(entry.id);
+                result.setDocument(storage.readText(entry));
+                result.setMetadata(new HashMap<>(entry.metadata));
+                result.setDistance(neighbor.distance());
+                result.setSimilarity(1.0 - neighbor.distance());
+                results.add(result);
+            }
+            return results;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read embedded vector store", e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 문서 삭제
+     */
+    @Override
+    public void deleteDocuments(List<String> ids) {
+        lock.writeLock().lock();
+        try {
+            List<Integer> ordinals = new ArrayList<>();
+            for (String id : ids) {
+                Integer ordinal = storage.ordinals.get(id);
+                if (ordinal != null) {
+                    ordinals.add(ordinal);
+                }
+            }
+            storage.delete(ordinals);
+            log.info("Deleted {} documents from embedded vector store", ordinals.size());
+        } catch (Exception e) {
+            log.error("Error deleting documents from embedded vector store", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 원본 문서 ID에 속한 모든 청크 삭제
+     */
+    @Override
+    public void deleteByDocumentId(Long documentId) {
+        lock.writeLock().lock();
+        try {
+            List<Integer> ordinals = new ArrayList<>();
+            for (int ordinal = 0; ordinal < storage.entries.size(); ordinal++) {
+                Entry entry = storage.entries.get(ordinal);
+                if (!entry.deleted && entry.metadata.get("documentId") instanceof Number number
+                    && number.longValue() == documentId) {
+                    ordinals.add(ordinal);
+                }
+            }
+            storage.delete(ordinals);
+            log.info("Deleted {} chunks of document {} from embedded vector store", ordinals.size(), documentId);
+        } catch (Exception e) {
+            log.error("Error deleting chunks of document {} from embedded vector store", documentId, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 압축 중 교체 단계에서 중단된 경우 복구 (저장소 디렉토리가 없으면 이전 디렉토리를 되돌리고 남은 작업 디렉토리 정리)
+     */
+    private void recoverCompaction(Path path) throws IOException {
+        Path target = compactDirectory(path);
+        Path backup = backupDirectory(path);
+        if (!Files.exists(path) && Files.isDirectory(backup)) {
+            log.warn("Restoring embedded vector store from {} after interrupted compaction", backup);
+            Files.move(backup, path, StandardCopyOption.ATOMIC_MOVE);
+        }
+        FileUtils.deleteDirectory(target.toFile());
+        FileUtils.deleteDirectory(backup.toFile());
+    }
+
+    private static Path compactDirectory(Path path) {
+        return path.resolveSibling(path.getFileName() + ".compact");
+    }
+
+    private static Path backupDirectory(Path path) {
+        return path.resolveSibling(path.getFileName() + ".old");
+    }
+
+    /**
+     * 삭제되지 않은 청크만 새 디렉토리에 다시 기록한 뒤 교체
+     * (교체 도중 중단되면 다음 시작 시 recoverCompaction이 이전 디렉토리를 복구)
+     */
+    private void compact(Path path) throws IOException {
+        long startTime = System.currentTimeMillis();
+        Path target = compactDirectory(path);
+        Path backup = backupDirectory(path);
+        FileUtils.deleteDirectory(target.toFile());
+        FileUtils.deleteDirectory(backup.toFile());
+
+        try (Storage compacted = new Storage(target)) {
+            List<String> ids = new ArrayList<>();
+            List<String> texts = new ArrayList<>();
+            List<Map<String, Object>> metadatas = new ArrayList<>();
+            List<float[]> vectors = new ArrayList<>();
+            for (int ordinal = 0; ordinal < storage.entries.size(); ordinal++) {
+                Entry entry = storage.entries.get(ordinal);
+                if (entry.deleted) {
+                    continue;
+                }
+                ids.add(entry.id);
+                texts.add(storage.readText(entry));
+                metadatas.add(entry.metadata);
+                vectors.add(storage.index.vector(ordinal));
+                if (ids.size() >= COMPACT_BATCH_SIZE) {
+                    compacted.append(ids, texts, metadatas, vectors);
+                    ids.clear();
+                    texts.clear();
+                    metadatas.clear();
+                    vectors.clear();
+                }
+            }
+            compacted.append(ids, texts, metadatas, vectors);
+        }
+
+        int removed = storage.deleted;
+        storage.close();
+        Files.move(path, backup, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(target, path, StandardCopyOption.ATOMIC_MOVE);
+        FileUtils.deleteDirectory(backup.toFile());
+        storage = new Storage(path);
+        log.info("Compacted embedded vector store: removed {} deleted chunks ({}ms)",
+            removed, System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * 저장소 디렉토리 하나의 파일과 메모리 상태 (EmbeddedVectorStore의 lock으로 보호)
+     */
+    private final class Storage implements Closeable {
+
+        private final Path path;
+        private final FileChannel textChannel;
+        private final BufferedWriter recordWriter;
+        private final List<Entry> entries = new ArrayList<>();
+        /** 삭제되지 않은 청크 ID → 노드 번호 */
+        private final Map<String, Integer> ordinals = new HashMap<>();
+        private HnswIndex index;
+        private int deleted;
+        /** 마지막으로 저장한 그래프의 노드 수 */
+        private int savedNodes;
+
+        Storage(Path path) throws IOException {
+            this.path = path;
+            Files.createDirectories(path);
+            Path records = path.resolve(RECORDS_FILE);
+            if (Files.isRegularFile(records)) {
+                long validLength = readRecords(records);
+                if (Files.size(records) > validLength) {
+                    // 끊긴 줄 뒤에 새 기록이 붙으면 다음 시작 때 그 뒤가 모두 읽히지 않으므로 잘라냄
+                    log.warn("Truncating {} torn bytes at the end of {}", Files.size(records) - validLength, records);
+                    try (FileChannel channel = FileChannel.open(records, StandardOpenOption.WRITE)) {
+                        channel.truncate(validLength);
+                        channel.force(true);
+                    }
+                }
+            }
+            if (HnswIndex.exists(path)) {
+                index = HnswIndex.load(path, m, efConstruction, QUANTIZATION_INT8.equals(quantization));
+                savedNodes = index.size();
+                recover();
+            } else if (!entries.isEmpty()) {
+                throw new IllegalStateException("Vector index is missing in " + path);
+            }
+            this.textChannel = FileChannel.open(path.resolve(TEXTS_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.recordWriter = Files.newBufferedWriter(records, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+
+        /**
+         * 추가/삭제 기록 재생 (줄바꿈으로 끝난 줄만 사용하며, 읽지 못한 줄이 있으면 그 앞에서 멈춤)
+         * @return 마지막으로 읽은 정상 기록의 끝 위치 (바이트)
+         */
+        private long readRecords(Path records) throws IOException {
+            long validLength = 0;
+            long position = 0;
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            byte[] buffer = new byte[64 * 1024];
+            try (InputStream in = Files.newInputStream(records)) {
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    int start = 0;
+                    for (int i = 0; i < read; i++) {
+                        if (buffer[i] != '\n') {
+                            continue;
+                        }
+                        line.write(buffer, start, i - start);
+                        applyRecord(objectMapper.readValue(line.toByteArray(), Record.class));
+                        line.reset();
+                        start = i + 1;
+                        validLength = position + start;
+                    }
+                    line.write(buffer, start, read - start);
+                    position += read;
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Stopped reading vector store records at entry {}: {}", entries.size(), e.getMessage());
+            }
+            return validLength;
+        }
+
+        private void applyRecord(Record record) {
+            if (record.deleted() != null) {
+                for (int ordinal : record.deleted()) {
+                    markDeleted(ordinal);
+                }
+            } else if (record.ordinal() == entries.size()) {
+                entries.add(new Entry(record.id(), record.metadata(), record.offset(), record.length()));
+                ordinals.put(record.id(), record.ordinal());
+            }
+        }
+
+        /**
+         * 기록은 되었지만 그래프 저장 전에 종료된 노드를 다시 연결하고, 기록이 없는 노드는 삭제로 표시
+         */
+        private void recover() throws IOException {
+            int recovered = 0;
+            for (int ordinal = index.size(); ordinal < entries.size(); ordinal++) {
+                index.add(index.vector(ordinal));
+                recovered++;
+            }
+            while (entries.size() < index.size()) {
+                Entry missing = new Entry(null, Map.of(), 0, 0);
+                missing.deleted = true;
+                entries.add(missing);
+                deleted++;
+            }
+            if (recovered > 0) {
+                saveGraph();
+                log.info("Recovered {} vectors missing from the saved graph", recovered);
+            }
+        }
+
+        /**
+         * 벡터, 본문, 기록 순으로 추가 (그래프 저장은 호출자가 결정)
+         */
+        void append(List<String> ids, List<String> texts, List<Map<String, Object>> metadatas,
+                    List<float[]> vectors) throws IOException {
+            if (ids.isEmpty()) {
+                return;
+            }
+            if (index == null) {
+                index = HnswIndex.create(path, vectors.get(0).length, m, efConstruction,
+                    QUANTIZATION_INT8.equals(quantization));
+            }
+
+            List<Record> records = new ArrayList<>(ids.size());
+            for (int i = 0; i < ids.size(); i++) {
+                byte[] bytes = texts.get(i).getBytes(StandardCharsets.UTF_8);
+                long offset = textChannel.size();
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                while (buffer.hasRemaining()) {
+                    textChannel.write(buffer, offset + buffer.position());
+                }
+
+                int ordinal = index.add(vectors.get(i));
+                Map<String, Object> metadata = new LinkedHashMap<>(metadatas.get(i));
+                entries.add(new Entry(ids.get(i), metadata, offset, bytes.length));
+                ordinals.put(ids.get(i), ordinal);
+                records.add(new Record(ordinal, ids.get(i), metadata, offset, bytes.length, null));
+            }
+
+            // 재시작 시 기록된 노드의 벡터와 본문을 읽을 수 있도록 기록보다 먼저 반영
+            index.flush();
+            textChannel.force(false);
+            writeRecords(records);
+        }
+
+        int unsavedNodes() {
+            return index != null ? index.size() - savedNodes : 0;
+        }
+
+        void saveGraph() throws IOException {
+            int size = index.size();
+            index.save();
+            savedNodes = size;
+        }
+
+        void delete(List<Integer> removed) throws IOException {
+            if (removed.isEmpty()) {
+                return;
+            }
+            for (int ordinal : removed) {
+                markDeleted(ordinal);
+            }
+            writeRecords(List.of(new Record(null, null, null, null, null, removed)));
+        }
+
+        String readText(Entry entry) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(entry.length);
+            while (buffer.hasRemaining()) {
+                if (textChannel.read(buffer, entry.offset + buffer.position()) < 0) {
+                    throw new IOException("Unexpected end of " + TEXTS_FILE);
+                }
+            }
+            return new String(buffer.array(), StandardCharsets.UTF_8);
+        }
+
+        private void markDeleted(int ordinal) {
+            if (ordinal < entries.size() && !entries.get(ordinal).deleted) {
+                Entry entry = entries.get(ordinal);
+                entry.deleted = true;
+                ordinals.remove(entry.id);
+                deleted++;
+            }
+        }
+
+        private void writeRecords(List<Record> records) throws IOException {
+            for (Record record : records) {
+                recordWriter.write(objectMapper.writeValueAsString(record));
+                recordWriter.newLine();
+            }
+            recordWriter.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            recordWriter.close();
+            textChannel.close();
+            if (index != null) {
+                saveGraph();
+                index.close();
+            }
+        }
+    }
+
+    /**
+     * 청크 하나의 위치와 메타데이터
+     */
+    private static final class Entry {
+
+        private final String id;
+        private final Map<String, Object> metadata;
+        private final long offset;
+        private final int length;
+        private boolean deleted;
+
+        Entry(String id, Map<String, Object> metadata, long offset, int length) {
+            this.id = id;
+            this.metadata = metadata;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * records.jsonl 한 줄 (청크 추가 또는 삭제된 노드 번호 목록)
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private record Record(Integer ordinal, String id, Map<String, Object> metadata, Long offset, Integer length,
+                          List<Integer> deleted) {
+    }
+}
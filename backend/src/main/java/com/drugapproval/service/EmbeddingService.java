@@ -0,0 +1,69 @@
+package com.drugapproval.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 질의 임베딩 서비스
+ * Ollama 임베딩 모델로 질문 임베딩을 계산하고, 반복되는 질문은 메모리 LRU 캐시에서 바로 돌려준다.
+ * (반환된 배열은 캐시와 공유되므로 호출자가 수정하면 안 됨)
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EmbeddingService {
+
+    private final OllamaService ollamaService;
+
+    @Value("${app.embedding.cache-size:1000}")
+    private int cacheSize;
+
+    /** 접근 순서 LRU (this로 동기화) */
+    private final LinkedHashMap<String, float[]> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, float[]> eldest) {
+            return size() > cacheSize;
+        }
+    };
+
+    /**
+     * 텍스트 임베딩 (캐시 우선, 블로킹)
+     */
+    public float[] embed(String text) {
+        return embedAsync(text).block();
+    }
+
+    /**
+     * 텍스트 임베딩 (캐시 우선, 논블로킹)
+     */
+    public Mono<float[]> embedAsync(String text) {
+        synchronized (this) {
+            float[] cached = cache.get(text);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+        }
+
+        long startTime = System.currentTimeMillis();
+        return ollamaService.embedBatch(List.of(text))
+            .map(embeddings -> {
+                float[] embedding = embeddings.get(0);
+                log.debug("Computed query embedding ({} dims) in {}ms", embedding.length,
+                    System.currentTimeMillis() - startTime);
+
+                synchronized (this) {
+                    if (cacheSize > 0) {
+                        cache.put(text, embedding);
+                    }
+                }
+                return embedding;
+            });
+    }
+}
@@ -0,0 +1,220 @@
+package com.drugapproval.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 하이브리드 검색 서비스
+ * 벡터 검색(VectorStore)과 키워드 검색(KeywordIndex)을 동시에 실행하고 순위 역수 융합(RRF)으로 합친다.
+ * 각 검색은 지연 시간 예산(timeout-ms) 안에 끝난 결과만 사용하므로, 한쪽이 느리거나 실패하면
+ * 응답한 쪽의 결과만으로 답한다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HybridRetrievalService {
+
+    public static final String VECTOR = "vector";
+    public static final String KEYWORD = "keyword";
+    public static final String HYBRID = "hybrid";
+
+    private final VectorStore vectorStore;
+    private final KeywordIndex keywordIndex;
+
+    @Qualifier("queryIoScheduler")
+    private final Scheduler queryIoScheduler;
+
+    @Value("${app.retrieval.top-k:5}")
+    private int topK;
+
+    @Value("${app.retrieval.candidates:20}")
+    private int candidates;
+
+    @Value("${app.retrieval.rrf-k:60}")
+    private int rrfK;
+
+    @Value("${app.retrieval.timeout-ms:3000}")
+    private long timeoutMs;
+
+    @Value("${app.retrieval.keyword-enabled:true}")
+    private boolean keywordEnabled;
+
+    @Value("${app.retrieval.passage-chars:1000}")
+    private int passageChars;
+
+    /**
+     * 질문 관련 본문 검색 (벡터/키워드 병렬 실행 후 RRF 상위 topK)
+     */
+    public Mono<List<Passage>> retrieve(String question) {
+        Mono<List<Passage>> vector = withinBudget(VECTOR,
+            vectorStore.query(question, candidates).map(this::toPassages));
+        Mono<List<Passage>> keyword = keywordEnabled
+            ? withinBudget(KEYWORD, Mono.fromCallable(() -> keywordSearch(question)).subscribeOn(queryIoScheduler))
+            : Mono.just(List.of());
+
+        long startTime = System.currentTimeMillis();
+        return Mono.zip(vector, keyword, (vectorHits, keywordHits) -> {
+            List<Passage> passages = fuse(vectorHits, keywordHits);
+            log.debug("Hybrid retrieval: {} vector + {} keyword hits -> {} passages in {}ms",
+                vectorHits.size(), keywordHits.size(), passages.size(), System.currentTimeMillis() - startTime);
+            return passages;
+        });
+    }
+
+    /**
+     * 검색 하나에 지연 시간 예산 적용 (예산 초과/실패 시 빈 결과로 대체)
+     * 벡터 검색은 논블로킹 Mono로 받고, 키워드 검색은 블로킹 호출을 질의 전용 스케줄러에서 실행한다.
+     */
+    private Mono<List<Passage>> withinBudget(String name, Mono<List<Passage>> search) {
+        return search
+            .timeout(Duration.ofMillis(timeoutMs))
+            .onErrorResume(e -> {
+                if (e instanceof TimeoutException) {
+                    log.warn("{} retrieval exceeded {}ms, answering without it", name, timeoutMs);
+                } else {
+                    log.warn("{} retrieval failed, answering without it: {}", name, e.getMessage());
+                }
+                return Mono.just(List.of());
+            });
+    }
+
+    private List<Passage> toPassages(List<VectorStore.SearchResult> results) {
+        List<Passage> passages = new ArrayList<>(results.size());
+        for (VectorStore.SearchResult result : results) {
+            Map<String, Object> metadata = result.metadata() != null ? result.metadata() : Map.of();
+            passages.add(new Passage(result.getId(), result.getDocument(),
+                getLong(metadata.get("documentId")), (String) metadata.get("fileName"),
+                getInteger(metadata.get("pageNumber")), getInteger(metadata.get("chunkIndex")),
+                result.getSimilarity(), 0, VECTOR));
+        }
+        return passages;
+    }
+
+    private List<Passage> keywordSearch(String question) throws Exception {
+        List<Map<String, Object>> results = keywordIndex.searchPassages(question, candidates, passageChars);
+        List<Passage> passages = new ArrayList<>(results.size());
+        for (Map<String, Object> result : results) {
+            String text = (String) result.get("_passage");
+            if (text == null || text.isBlank()) {
+                continue;
+            }
+            passages.add(new Passage((String) result.get("_id"), text,
+                getLong(result.get("documentId")), (String) result.get("fileName"),
+                getInteger(result.get("pageNumber")), null, null, 0, KEYWORD));
+        }
+        return passages;
+    }
+
+    /**
+     * 순위 역수 융합: 각 결과 목록에서의 순위 r마다 1 / (rrfK + r)를 더한다.
+     * 키워드 결과(페이지)가 같은 페이지의 벡터 결과(청크)와 겹치면 가장 높은 순위의 청크에 점수를 합산한다.
+     */
+    List<Passage> fuse(List<Passage> vectorHits, List<Passage> keywordHits) {
+        Map<String, Fused> fused = new LinkedHashMap<>();
+        Map<String, Fused> byPage = new HashMap<>();
+
+        for (int rank = 0; rank < vectorHits.size(); rank++) {
+            Passage passage = vectorHits.get(rank);
+            Fused entry = fused.computeIfAbsent(VECTOR + ":" + passage.id(), k -> new Fused(passage));
+            entry.score += 1.0 / (rrfK + rank + 1);
+            if (passage.pageKey() != null) {
+                byPage.putIfAbsent(passage.pageKey(), entry);
+            }
+        }
+
+        for (int rank = 0; rank < keywordHits.size(); rank++) {
+            Passage passage = keywordHits.get(rank);
+            Fused entry = passage.pageKey() != null ? byPage.get(passage.pageKey()) : null;
+            if (entry == null) {
+                entry = fused.computeIfAbsent(KEYWORD + ":" + passage.id(), k -> new Fused(passage));
+            } else if (entry.keyword) {
+                continue;
+            }
+            entry.keyword = true;
+            entry.score += 1.0 / (rrfK + rank + 1);
+        }
+
+        return fused.values().stream()
+            .sorted(Comparator.comparingDouble((Fused entry) -> entry.score).reversed())
+            .limit(topK)
+            .map(Fused::toPassage)
+            .toList();
+    }
+
+    /**
+     * 검색된 본문 조각
+     * @param retrievedBy 검색 경로 (vector, keyword, hybrid)
+     */
+    public record Passage(String id, String text, Long documentId, String fileName, Integer pageNumber,
+                          Integer chunkIndex, Double similarity, double score, String retrievedBy) {
+
+        String pageKey() {
+            return documentId != null && pageNumber != null ? documentId + ":" + pageNumber : null;
+        }
+
+        Passage withText(String newText) {
+            return new Passage(id, newText, documentId, fileName, pageNumber, chunkIndex, similarity, score, retrievedBy);
+        }
+    }
+
+    private static final class Fused {
+
+        private final Passage passage;
+        private double score;
+        private boolean keyword;
+
+        Fused(Passage passage) {
+            this.passage = passage;
+        }
+
+        Passage toPassage() {
+            String retrievedBy = VECTOR.equals(passage.retrievedBy()) && keyword ? HYBRID : passage.retrievedBy();
+            return new Passage(passage.id(), passage.text(), passage.documentId(), passage.fileName(),
+                passage.pageNumber(), passage.chunkIndex(), passage.similarity(), score, retrievedBy);
+        }
+    }
+
+    /**
+     * Object to Long 변환
+     */
+    private Long getLong(Object value) {
+        if (value == null) return null;
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        try {
+            return Long.parseLong(value.toString());
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Object to Integer 변환
+     */
+    private Integer getInteger(Object value) {
+        if (value == null) return null;
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        try {
+            return Integer.parseInt(value.toString());
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.drugapproval.service;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 키워드 검색 인덱스
+ * app.keyword-index.type으로 구현을 선택한다. (opensearch: OpenSearch 서버, embedded: 프로세스 내 BM25 색인)
+ */
+public interface KeywordIndex {
+
+    /**
+     * 문서 인덱싱 (같은 ID는 교체)
+     * @return 인덱싱된 문서 ID
+     */
+    String indexDocument(String id, Map<String, Object> document);
+
+    /**
+     * 페이지 단위 일괄 적재기 생성
+     */
+    BulkWriter bulkWriter();
+
+    /**
+     * 문서 검색 (원본 필드와 "_id", "_score" 포함)
+     */
+    List<Map<String, Object>> search(String queryText, int size);
+
+    /**
+     * 본문 키워드 검색 (질문과 가장 잘 맞는 본문 조각을 "_passage"로 함께 반환, 본문 필드는 제외)
+     * (검색 실패 시 예외를 그대로 던져 호출자가 검색 경로를 제외할 수 있게 함)
+     */
+    List<Map<String, Object>> searchPassages(String queryText, int size, int fragmentSize) throws IOException;
+
+    /**
+     * 원본 문서 ID로 인덱싱된 모든 항목 삭제 (문서 단위/페이지 단위 공통)
+     */
+    void deleteByDocumentId(Long documentId);
+
+    /**
+     * 일괄 적재기
+     */
+    interface BulkWriter {
+
+        void add(String id, Map<String, Object> document, int contentLength);
+
+        /**
+         * 남은 문서를 적재하고 검색 가능하게 반영
+         * @return 적재된 문서 수
+         */
+        int finish();
+    }
+}
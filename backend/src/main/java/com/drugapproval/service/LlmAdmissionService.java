@@ -0,0 +1,221 @@
+package com.drugapproval.service;
+
+import com.drugapproval.entity.QueryHistory.PromptType;
+import com.drugapproval.exception.TooManyRequestsException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * LLM 생성 요청 수락 제어
+ * 동시에 Ollama로 보내는 생성 요청 수를 제한하고, 나머지는 유한 대기열에서 순서를 기다리게 한다.
+ * 대기열은 프롬프트 타입별 우선순위(높음/보통/낮음) 순으로 꺼내며, 같은 우선순위 안에서는 사용자별로
+ * 번갈아 꺼내 한 사용자의 연속 요청이 다른 사용자를 밀어내지 않도록 한다.
+ * 대기열이 가득 차거나 대기 시간이 max-wait-seconds를 넘으면 429(Retry-After)로 거절한다.
+ */
+@Slf4j
+@Service
+public class LlmAdmissionService {
+
+    private static final String ANONYMOUS = "anonymous";
+    private static final int PRIORITY_LEVELS = 3;
+
+    @Value("${app.llm.max-concurrent:2}")
+    private int maxConcurrent;
+
+    @Value("${app.llm.queue-capacity:50}")
+    private int queueCapacity;
+
+    @Value("${app.llm.max-wait-seconds:120}")
+    private long maxWaitSeconds;
+
+    @Value("${app.llm.retry-after-seconds:10}")
+    private long retryAfterSeconds;
+
+    @Value("${app.llm.high-priority:SIMPLE,POINT}")
+    private List<PromptType> highPriority;
+
+    @Value("${app.llm.low-priority:DETAILED,STEP_BY_STEP}")
+    private List<PromptType> lowPriority;
+
+    /** 우선순위별 사용자 대기열 (삽입 순서 = 순환 순서, this로 동기화) */
+    private final List<LinkedHashMap<String, ArrayDeque<Ticket>>> waiting = new ArrayList<>();
+
+    private int active;
+    private int queued;
+
+    public LlmAdmissionService() {
+        for (int i = 0; i < PRIORITY_LEVELS; i++) {
+            waiting.add(new LinkedHashMap<>());
+        }
+    }
+
+    /**
+     * 수락된 뒤에 생성 작업 실행 (작업이 끝나거나 취소되면 슬롯 반환)
+     */
+    public <T> Mono<T> admit(String userName, PromptType promptType, Mono<T> generation) {
+        return Mono.usingWhen(acquire(userName, promptType), permit -> generation,
+            Permit::release, (permit, error) -> permit.release(), Permit::release);
+    }
+
+    /**
+     * 수락된 뒤에 스트리밍 생성 작업 실행 (스트림이 끝나거나 취소되면 슬롯 반환)
+     */
+    public <T> Flux<T> admitMany(String userName, PromptType promptType, Flux<T> generation) {
+        return Flux.usingWhen(acquire(userName, promptType), permit -> generation,
+            Permit::release, (permit, error) -> permit.release(), Permit::release);
+    }
+
+    /**
+     * 실행 슬롯 획득 (빈 슬롯이 없으면 대기열에 등록, 대기열이 가득 차면 즉시 거절)
+     */
+    private Mono<Permit> acquire(String userName, PromptType promptType) {
+        String user = userName == null || userName.isBlank() ? ANONYMOUS : userName;
+        int priority = priorityOf(promptType);
+
+        return Mono.<Permit>create(sink -> {
+                Ticket ticket = new Ticket(user, sink);
+                synchronized (this) {
+                    if (active < maxConcurrent && queued == 0) {
+                        active++;
+                        ticket.granted = true;
+                    } else if (queued >= queueCapacity) {
+                        ticket = null;
+                    } else {
+                        waiting.get(priority).computeIfAbsent(user, k -> new ArrayDeque<>()).add(ticket);
+                        queued++;
+                    }
+                }
+
+                if (ticket == null) {
+                    log.warn("LLM queue full ({} waiting), rejecting request from {}", queueCapacity, user);
+                    sink.error(new TooManyRequestsException(
+                        "답변 생성 요청이 많습니다. 잠시 후 다시 시도해주세요.", retryAfterSeconds));
+                    return;
+                }
+                if (ticket.granted) {
+                    sink.success(new Permit());
+                    return;
+                }
+
+                Ticket waitingTicket = ticket;
+                sink.onCancel(() -> cancel(priority, waitingTicket));
+                log.debug("LLM request from {} queued (priority {}, {} waiting)", user, priority, queued);
+            })
+            .timeout(Duration.ofSeconds(maxWaitSeconds))
+            .onErrorMap(TimeoutException.class, e -> new TooManyRequestsException(
+                "답변 생성 대기 시간이 초과되었습니다. 잠시 후 다시 시도해주세요.", retryAfterSeconds));
+    }
+
+    /**
+     * 대기 중 취소된 요청 제거 (이미 슬롯을 받았다면 반환)
+     */
+    private void cancel(int priority, Ticket ticket) {
+        boolean release;
+        synchronized (this) {
+            release = ticket.granted;
+            if (!release) {
+                ArrayDeque<Ticket> queue = waiting.get(priority).get(ticket.user);
+                if (queue != null && queue.remove(ticket)) {
+                    queued--;
+                    if (queue.isEmpty()) {
+                        waiting.get(priority).remove(ticket.user);
+                    }
+                }
+            }
+        }
+        if (release) {
+            releaseSlot();
+        }
+    }
+
+    /**
+     * 슬롯 반환 후 다음 대기 요청에 넘김
+     */
+    private void releaseSlot() {
+        Ticket next;
+        synchronized (this) {
+            next = poll();
+            if (next != null) {
+                next.granted = true;
+            } else {
+                active--;
+            }
+        }
+        if (next != null) {
+            next.sink.success(new Permit());
+        }
+    }
+
+    /**
+     * 가장 높은 우선순위 대기열에서 순환 순서상 첫 사용자의 요청을 꺼내고, 그 사용자를 순서 맨 뒤로 보냄
+     */
+    private Ticket poll() {
+        for (LinkedHashMap<String, ArrayDeque<Ticket>> level : waiting) {
+            Iterator<Map.Entry<String, ArrayDeque<Ticket>>> iterator = level.entrySet().iterator();
+            if (!iterator.hasNext()) {
+                continue;
+            }
+            Map.Entry<String, ArrayDeque<Ticket>> first = iterator.next();
+            Ticket ticket = first.getValue().poll();
+            iterator.remove();
+            if (!first.getValue().isEmpty()) {
+                level.put(first.getKey(), first.getValue());
+            }
+            queued--;
+            return ticket;
+        }
+        return null;
+    }
+
+    private int priorityOf(PromptType promptType) {
+        if (highPriority.contains(promptType)) {
+            return 0;
+        }
+        return lowPriority.contains(promptType) ? 2 : 1;
+    }
+
+    /**
+     * 대기 중인 요청
+     */
+    private static final class Ticket {
+
+        private final String user;
+        private final MonoSink<Permit> sink;
+        private boolean granted;
+
+        Ticket(String user, MonoSink<Permit> sink) {
+            this.user = user;
+            this.sink = sink;
+        }
+    }
+
+    /**
+     * 실행 슬롯 (한 번만 반환됨)
+     */
+    private final class Permit {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Mono<Void> release() {
+            return Mono.fromRunnable(() -> {
+                if (released.compareAndSet(false, true)) {
+                    releaseSlot();
+                }
+            });
+        }
+    }
+}
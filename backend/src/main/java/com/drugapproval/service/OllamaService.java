@@ -9,7 +9,13 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -29,30 +35,123 @@ public class OllamaService {
     @Value("${app.ollama.model}")
     private String model;
 
+    @Value("${app.ollama.embedding-model:nomic-embed-text}")
+    private String embeddingModel;
+
     /**
-     * LLM에 질문하고 응답 받기
+     * LLM에 질문하고 응답 받기 (논블로킹)
      */
-    public String generate(String prompt, PromptType promptType, List<String> contextDocuments) {
-        try {
-            String enhancedPrompt = buildPrompt(prompt, promptType, contextDocuments);
+    public Mono<String> generate(String prompt, PromptType promptType, List<String> contextDocuments) {
+        return generate(prompt, promptType, contextDocuments, null).map(Generation::text);
+    }
 
-            Map<String, Object> request = Map.of(
-                "model", model,
-                "prompt", enhancedPrompt,
-                "stream", false
-            );
+    /**
+     * 이전 대화의 context에 이어서 응답 받기 (context가 null이면 새 대화)
+     * Ollama는 context 토큰을 다시 처리하지 않고 새 프롬프트만 처리하며, 이어지는 대화의 context를 함께 돌려준다.
+     */
+    public Mono<Generation> generate(String prompt, PromptType promptType, List<String> contextDocuments,
+                                     int[] context) {
+        return ollamaWebClient.post()
+            .uri("/api/generate")
+            .bodyValue(buildRequest(prompt, promptType, contextDocuments, context, false))
+            .retrieve()
+            .bodyToMono(String.class)
+            .map(this::extractGeneration)
+            .onErrorMap(e -> {
+                log.error("Error generating response from Ollama", e);
+                return new RuntimeException("Failed to generate response", e);
+            });
+    }
 
-            String response = ollamaWebClient.post()
-                .uri("/api/generate")
-                .bodyValue(request)
-                .retrieve()
-                .bodyToMono(String.class)
-                .block();
+    /**
+     * LLM 응답을 토큰 단위로 스트리밍 (Ollama의 NDJSON 스트림을 토큰 텍스트로 변환)
+     */
+    public Flux<String> generateStream(String prompt, PromptType promptType, List<String> contextDocuments) {
+        return generateStream(prompt, promptType, contextDocuments, null)
+            .map(Generation::text)
+            .filter(token -> !token.isEmpty());
+    }
 
-            return extractResponse(response);
-        } catch (Exception e) {
-            log.error("Error generating response from Ollama", e);
-            throw new RuntimeException("Failed to generate response", e);
+    /**
+     * 이전 대화의 context에 이어서 토큰 단위로 스트리밍 (마지막 항목에 이어지는 대화의 context가 담김)
+     */
+    public Flux<Generation> generateStream(String prompt, PromptType promptType, List<String> contextDocuments,
+                                           int[] context) {
+        return ollamaWebClient.post()
+            .uri("/api/generate")
+            .bodyValue(buildRequest(prompt, promptType, contextDocuments, context, true))
+            .retrieve()
+            .bodyToFlux(String.class)
+            .filter(line -> !line.isBlank())
+            .handle((line, sink) -> {
+                try {
+                    JsonNode chunk = objectMapper.readTree(line);
+                    if (chunk.hasNonNull("error")) {
+                        sink.error(new IllegalStateException("Ollama error: " + chunk.get("error").asText()));
+                        return;
+                    }
+                    String token = chunk.path("response").asText("");
+                    int[] returned = parseContext(chunk);
+                    if (!token.isEmpty() || returned != null) {
+                        sink.next(new Generation(token, returned));
+                    }
+                } catch (IOException e) {
+                    sink.error(new UncheckedIOException("Invalid Ollama stream chunk", e));
+                }
+            });
+    }
+
+    private Map<String, Object> buildRequest(String prompt, PromptType promptType, List<String> contextDocuments,
+                                             int[] context, boolean stream) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("model", model);
+        request.put("prompt", buildPrompt(prompt, promptType, contextDocuments));
+        request.put("stream", stream);
+        if (context != null) {
+            request.put("context", context);
+        }
+        return request;
+    }
+
+    /**
+     * 여러 텍스트의 임베딩을 한 번의 요청으로 생성 (/api/embed, 입력 순서대로 반환)
+     */
+    public Mono<List<float[]>> embedBatch(List<String> texts) {
+        Map<String, Object> request = Map.of(
+            "model", embeddingModel,
+            "input", texts
+        );
+
+        return ollamaWebClient.post()
+            .uri("/api/embed")
+            .bodyValue(request)
+            .retrieve()
+            .bodyToMono(String.class)
+            .map(response -> parseEmbeddings(response, texts.size()));
+    }
+
+    /**
+     * /api/embed 응답 파싱
+     */
+    private List<float[]> parseEmbeddings(String response, int expected) {
+        try {
+            JsonNode embeddings = objectMapper.readTree(response).path("embeddings");
+            if (embeddings.size() != expected) {
+                throw new IllegalStateException(
+                    "Expected " + expected + " embeddings but received " + embeddings.size());
+            }
+
+            List<float[]> vectors = new ArrayList<>(expected);
+            for (JsonNode embedding : embeddings) {
+                float[] vector = new float[embedding.size()];
+                for (int i = 0; i < vector.length; i++) {
+                    vector[i] = (float) embedding.get(i).asDouble();
+                }
+                vectors.add(vector);
+            }
+            return vectors;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Invalid embedding response", e);
         }
     }
 
@@ -125,16 +224,38 @@ public class OllamaService {
     }
 
     /**
-     * Ollama 응답에서 텍스트 추출
+     * Ollama 응답에서 텍스트와 context 추출
+     * 응답을 해석할 수 없으면 예외를 던져 오류 신호로 전달한다. (실패한 생성이 답변으로 캐시/이력에 저장되지 않도록)
      */
-    private String extractResponse(String response) {
+    private Generation extractGeneration(String response) {
+        JsonNode root;
         try {
-            JsonNode root = objectMapper.readTree(response);
-            return root.path("response").asText();
-        } catch (Exception e) {
-            log.error("Error parsing Ollama response", e);
-            return "응답 처리 중 오류가 발생했습니다.";
+            root = objectMapper.readTree(response);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Invalid Ollama response", e);
         }
+        if (root.hasNonNull("error")) {
+            throw new IllegalStateException("Ollama error: " + root.get("error").asText());
+        }
+        if (!root.path("response").isTextual()) {
+            throw new IllegalStateException("Ollama response has no text");
+        }
+        return new Generation(root.get("response").asText(), parseContext(root));
+    }
+
+    /**
+     * 완료 응답의 context 토큰 배열 (없으면 null)
+     */
+    private int[] parseContext(JsonNode root) {
+        JsonNode context = root.path("context");
+        if (!context.isArray() || context.isEmpty()) {
+            return null;
+        }
+        int[] tokens = new int[context.size()];
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = context.get(i).asInt();
+        }
+        return tokens;
     }
 
     /**
@@ -162,4 +283,9 @@ public class OllamaService {
             return false;
         }
     }
+
+    /**
+     * 생성 결과 (응답 텍스트, 이어지는 대화의 context 토큰 배열)
+     */
+    public record Generation(String text, int[] context) {}
 }
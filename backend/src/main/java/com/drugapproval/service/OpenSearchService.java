@@ -3,29 +3,45 @@ package com.drugapproval.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.opensearch.client.opensearch.OpenSearchClient;
+import org.opensearch.client.opensearch._types.FieldValue;
+import org.opensearch.client.opensearch._types.Refresh;
 import org.opensearch.client.opensearch._types.query_dsl.Query;
 import org.opensearch.client.opensearch.core.*;
+import org.opensearch.client.opensearch.core.bulk.BulkOperation;
 import org.opensearch.client.opensearch.core.search.Hit;
 import org.opensearch.client.opensearch.indices.CreateIndexRequest;
 import org.opensearch.client.opensearch.indices.ExistsRequest;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * OpenSearch 검색 서비스
  */
 @Slf4j
 @Service
+@ConditionalOnProperty(name = "app.keyword-index.type", havingValue = "opensearch", matchIfMissing = true)
 @RequiredArgsConstructor
-public class OpenSearchService {
+public class OpenSearchService implements KeywordIndex {
 
     private final OpenSearchClient openSearchClient;
 
     @Value("${app.opensearch.index-name}")
     private String indexName;
 
+    @Value("${app.opensearch.bulk-size:100}")
+    private int bulkSize;
+
+    @Value("${app.opensearch.bulk-max-chars:2000000}")
+    private long bulkMaxChars;
+
+    @Value("${app.opensearch.refresh-on-complete:true}")
+    private boolean refreshOnComplete;
+
     /**
      * 인덱스 생성
      */
@@ -52,6 +68,7 @@ public class OpenSearchService {
     /**
      * 문서 인덱싱
      */
+    @Override
     public String indexDocument(String id, Map<String, Object> document) {
         try {
             IndexRequest<Map<String, Object>> request = IndexRequest.of(i -> i
@@ -69,9 +86,67 @@ public class OpenSearchService {
         }
     }
 
+    /**
+     * 여러 문서를 _bulk API로 한 번에 인덱싱 (refresh 없이 적재)
+     * @param documents 문서 ID → 문서 내용
+     */
+    public void bulkIndex(Map<String, Map<String, Object>> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+
+        try {
+            List<BulkOperation> operations = new ArrayList<>(documents.size());
+            documents.forEach((id, document) -> operations.add(BulkOperation.of(b -> b
+                .index(i -> i.id(id).document(document))
+            )));
+
+            BulkRequest request = BulkRequest.of(b -> b
+                .index(indexName)
+                .refresh(Refresh.False)
+                .operations(operations)
+            );
+
+            BulkResponse response = openSearchClient.bulk(request);
+            if (response.errors()) {
+                List<String> failures = response.items().stream()
+                    .filter(item -> item.error() != null)
+                    .map(item -> item.id() + ": " + item.error().reason())
+                    .limit(5)
+                    .collect(Collectors.toList());
+                throw new IllegalStateException("Bulk indexing failed for some documents: " + failures);
+            }
+
+            log.debug("Bulk indexed {} documents in {}ms", documents.size(), response.took());
+        } catch (Exception e) {
+            log.error("Error bulk indexing documents", e);
+            throw new RuntimeException("Failed to bulk index documents", e);
+        }
+    }
+
+    /**
+     * 인덱스 refresh (적재한 문서를 검색 가능하게 반영)
+     */
+    public void refreshIndex() {
+        try {
+            openSearchClient.indices().refresh(r -> r.index(indexName));
+        } catch (Exception e) {
+            log.warn("Error refreshing index '{}': {}", indexName, e.getMessage());
+        }
+    }
+
+    /**
+     * 페이지 단위 bulk 적재기 생성
+     */
+    @Override
+    public BulkWriter bulkWriter() {
+        return new OpenSearchBulkWriter();
+    }
+
     /**
      * 문서 검색
      */
+    @Override
     public List<Map<String, Object>> search(String queryText, int size) {
         try {
             SearchRequest searchRequest = SearchRequest.of(s -> s
@@ -102,6 +177,57 @@ public class OpenSearchService {
         }
     }
 
+    /**
+     * 본문 키워드 검색 (하이라이트 조각 포함)
+     * 페이지 단위 항목에서 질문과 가장 잘 맞는 본문 조각(fragmentSize 문자 이내)을 "_passage"로 함께 돌려준다.
+     * (검색 실패 시 예외를 그대로 던져 호출자가 검색 경로를 제외할 수 있게 함)
+     */
+    @Override
+    public List<Map<String, Object>> searchPassages(String queryText, int size, int fragmentSize) throws IOException {
+        SearchRequest searchRequest = SearchRequest.of(s -> s
+            .index(indexName)
+            .query(q -> q
+                .multiMatch(m -> m
+                    .query(queryText)
+                    .fields("content", "fileName^2", "description")
+                )
+            )
+            .source(src -> src.filter(f -> f.excludes("content")))
+            .highlight(h -> h
+                .fields("content", f -> f
+                    .fragmentSize(fragmentSize)
+                    .numberOfFragments(1)
+                    .noMatchSize(fragmentSize)
+                )
+                .preTags("")
+                .postTags("")
+            )
+            .size(size)
+        );
+
+        SearchResponse<Map<String, Object>> response = searchSources(searchRequest);
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (Hit<Map<String, Object>> hit : response.hits().hits()) {
+            Map<String, Object> result = hit.source() != null ? new HashMap<>(hit.source()) : new HashMap<>();
+            List<String> fragments = hit.highlight().get("content");
+            result.put("_id", hit.id());
+            result.put("_score", hit.score());
+            result.put("_passage", fragments != null && !fragments.isEmpty() ? fragments.get(0) : "");
+            results.add(result);
+        }
+        return results;
+    }
+
+    /**
+     * 검색 결과 원본(_source)을 Map<String, Object>로 받는 검색 (클라이언트 API가 원시 Map.class만 받으므로 한 곳에서 변환)
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private SearchResponse<Map<String, Object>> searchSources(SearchRequest searchRequest) throws IOException {
+        SearchResponse response = openSearchClient.search(searchRequest, Map.class);
+        return response;
+    }
+
     /**
      * 문서 가져오기
      */
@@ -136,4 +262,66 @@ public class OpenSearchService {
             log.error("Error deleting document", e);
         }
     }
+
+    /**
+     * 원본 문서 ID로 인덱싱된 모든 항목 삭제 (문서 단위/페이지 단위 공통)
+     */
+    @Override
+    public void deleteByDocumentId(Long documentId) {
+        try {
+            DeleteByQueryRequest request = DeleteByQueryRequest.of(d -> d
+                .index(indexName)
+                .query(q -> q.term(t -> t.field("documentId").value(FieldValue.of(documentId))))
+                .refresh(true)
+            );
+
+            DeleteByQueryResponse response = openSearchClient.deleteByQuery(request);
+            log.info("Deleted {} indexed entries for document {}", response.deleted(), documentId);
+        } catch (Exception e) {
+            log.error("Error deleting indexed entries for document {}", documentId, e);
+        }
+    }
+
+    /**
+     * 페이지 단위 bulk 적재기
+     * 문서 수 또는 누적 본문 길이가 설정값을 넘으면 _bulk 요청으로 내보낸다.
+     */
+    public class OpenSearchBulkWriter implements BulkWriter {
+
+        private Map<String, Map<String, Object>> pending = new LinkedHashMap<>();
+        private long pendingChars;
+        private int indexedCount;
+
+        @Override
+        public void add(String id, Map<String, Object> document, int contentLength) {
+            pending.put(id, document);
+            pendingChars += contentLength;
+            if (pending.size() >= bulkSize || pendingChars >= bulkMaxChars) {
+                flush();
+            }
+        }
+
+        public void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            bulkIndex(pending);
+            indexedCount += pending.size();
+            pending = new LinkedHashMap<>();
+            pendingChars = 0;
+        }
+
+        /**
+         * 남은 문서를 내보내고 설정에 따라 인덱스 refresh
+         * @return 인덱싱된 문서 수
+         */
+        @Override
+        public int finish() {
+            flush();
+            if (refreshOnComplete) {
+                refreshIndex();
+            }
+            return indexedCount;
+        }
+    }
 }
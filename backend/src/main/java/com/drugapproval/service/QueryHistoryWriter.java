@@ -0,0 +1,182 @@
+package com.drugapproval.service;
+
+import com.drugapproval.entity.QueryHistory;
+import com.drugapproval.repository.QueryHistoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 질문 이력 지연 일괄 저장 (write-behind)
+ * 질의 처리 중에는 이력을 메모리 버퍼에 넣기만 하고, 전용 스레드가 batch-size건이 모이거나
+ * flush-interval-ms가 지나면 한 트랜잭션으로 저장한다. (LLM 생성 시간 동안 DB 커넥션을 점유하지 않음)
+ * 버퍼가 가득 차면 잠시 기다린 뒤 호출 스레드에서 바로 저장하고, 종료 시에는 남은 이력을 모두 저장한다.
+ * 저장에 실패한 이력은 버리지 않고 다음 주기에 다시 저장한다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class QueryHistoryWriter implements SmartLifecycle {
+
+    private final QueryHistoryRepository queryHistoryRepository;
+
+    @Value("${app.query.history.buffer-capacity:10000}")
+    private int bufferCapacity;
+
+    @Value("${app.query.history.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.query.history.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${app.query.history.enqueue-timeout-ms:500}")
+    private long enqueueTimeoutMs;
+
+    @Value("${app.query.history.max-retries:3}")
+    private int maxRetries;
+
+    private BlockingQueue<QueryHistory> buffer;
+    private Thread worker;
+    private volatile boolean running;
+
+    /**
+     * 이력 저장 요청 (버퍼에 넣고 바로 반환, 버퍼가 가득 차 있거나 종료 중이면 직접 저장)
+     */
+    public void submit(QueryHistory history) {
+        if (running) {
+            try {
+                if (buffer.offer(history, enqueueTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    // 넣는 사이 종료되었고 아직 버퍼에 남아 있으면 직접 저장 (작업 스레드가 가져갔다면 그쪽에서 저장됨)
+                    if (running || !buffer.remove(history)) {
+                        return;
+                    }
+                } else {
+                    log.warn("Query history buffer full ({}), saving synchronously", bufferCapacity);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        queryHistoryRepository.save(history);
+    }
+
+    @Override
+    public void start() {
+        buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        running = true;
+        worker = new Thread(this::run, "query-history-writer");
+        worker.start();
+    }
+
+    /**
+     * 종료: 새 요청은 직접 저장하게 하고, 버퍼에 남은 이력을 모두 저장할 때까지 대기
+     */
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * DB 관련 빈보다 늦게 시작하고 먼저 종료
+     */
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE - 1;
+    }
+
+    private void run() {
+        List<QueryHistory> batch = new ArrayList<>(batchSize);
+        while (running || !buffer.isEmpty()) {
+            try {
+                long deadline = System.currentTimeMillis() + flushIntervalMs;
+                while (batch.size() < batchSize) {
+                    long wait = deadline - System.currentTimeMillis();
+                    QueryHistory history = wait > 0 ? buffer.poll(wait, TimeUnit.MILLISECONDS) : buffer.poll();
+                    if (history == null) {
+                        break;
+                    }
+                    batch.add(history);
+                    buffer.drainTo(batch, batchSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                // 종료 중 인터럽트: 남은 버퍼를 모두 모아 저장
+                buffer.drainTo(batch);
+                running = false;
+            }
+
+            // 저장하지 못한 이력은 버리지 않고 다음 주기에 다시 저장 (종료 시에는 flush에서 마지막으로 처리)
+            if (!batch.isEmpty()) {
+                flush(batch);
+            }
+        }
+        log.info("Query history writer stopped");
+    }
+
+    /**
+     * 한 트랜잭션으로 일괄 저장 (실패 시 재시도, 그래도 실패하면 한 건씩 저장)
+     * 저장된 이력은 batch에서 제거한다. 실행 중에는 남은 이력을 다음 주기에 다시 시도하고,
+     * 종료 중에는 한 건씩 저장까지 실패한 이력만 기록하고 버린다.
+     */
+    private void flush(List<QueryHistory> batch) {
+        for (int attempt = 1; attempt <= maxRetries + 1; attempt++) {
+            try {
+                long startTime = System.currentTimeMillis();
+                queryHistoryRepository.saveAll(batch);
+                log.debug("Saved {} query histories in {}ms", batch.size(), System.currentTimeMillis() - startTime);
+                batch.clear();
+                return;
+            } catch (Exception e) {
+                log.warn("Error saving {} query histories (attempt {}): {}", batch.size(), attempt, e.getMessage());
+                if (attempt > maxRetries) {
+                    break;
+                }
+                try {
+                    Thread.sleep(flushIntervalMs * attempt);
+                } catch (InterruptedException interrupted) {
+                    // 종료 요청: 인터럽트 상태는 다시 설정하지 않고(남은 저장이 곧바로 실패하지 않도록) 한 건씩 저장으로 넘어감
+                    running = false;
+                    break;
+                }
+            }
+        }
+
+        batch.removeIf(this::saveSingle);
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (running) {
+            log.warn("{} query histories not saved, retrying in next flush", batch.size());
+        } else {
+            log.error("Dropping {} query histories that could not be saved during shutdown", batch.size());
+            batch.clear();
+        }
+    }
+
+    private boolean saveSingle(QueryHistory history) {
+        try {
+            queryHistoryRepository.save(history);
+            return true;
+        } catch (Exception e) {
+            log.debug("Error saving query history: {}", e.getMessage());
+            return false;
+        }
+    }
+}
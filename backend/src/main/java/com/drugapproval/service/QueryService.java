@@ -3,19 +3,30 @@ package com.drugapproval.service;
 import com.drugapproval.dto.QueryRequest;
 import com.drugapproval.dto.QueryResponse;
 import com.drugapproval.entity.QueryHistory;
+import com.drugapproval.exception.TooManyRequestsException;
 import com.drugapproval.repository.QueryHistoryRepository;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -26,78 +37,375 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class QueryService {
 
+    private static final String EVENT_SOURCES = "sources";
+    private static final String EVENT_TOKEN = "token";
+    private static final String EVENT_DONE = "done";
+    private static final String EVENT_ERROR = "error";
+
     private final QueryHistoryRepository queryHistoryRepository;
-    private final ChromaService chromaService;
+    private final QueryHistoryWriter queryHistoryWriter;
+    private final HybridRetrievalService hybridRetrievalService;
+    private final ContextAssembler contextAssembler;
     private final OllamaService ollamaService;
     private final ObjectMapper objectMapper;
+    private final AnswerCache answerCache;
+    private final LlmAdmissionService llmAdmissionService;
+    private final ConversationSessionStore conversationSessions;
+
+    @Qualifier("queryIoScheduler")
+    private final Scheduler queryIoScheduler;
+
+    /** 진행 중인 검색/생성 (캐시 키 → 공유 결과) */
+    private final Map<String, Mono<AnswerCache.CachedAnswer>> inFlightAnswers = new ConcurrentHashMap<>();
+    private final Map<String, Flux<StreamPart>> inFlightStreams = new ConcurrentHashMap<>();
 
     /**
      * 질문 처리 및 응답 생성
+     * 같은 질문(정규화 후)과 프롬프트 타입의 답변이 캐시에 있으면 검색과 LLM 호출을 생략한다.
+     * 검색/생성은 논블로킹으로 진행하고, 블로킹 작업(캐시 조회, 이력 저장)은 질의 전용 스케줄러에서 실행한다.
+     * 세션 ID가 있으면 답변이 이전 대화에 따라 달라지므로 캐시를 거치지 않고 세션의 context에 이어서 생성한다.
      */
-    @Transactional
-    public QueryResponse processQuery(QueryRequest request) {
+    public Mono<QueryResponse> processQuery(QueryRequest request) {
         long startTime = System.currentTimeMillis();
 
-        try {
-            // 1. ChromaDB에서 관련 문서 검색
-            List<ChromaService.SearchResult> searchResults = chromaService.query(request.getQuestion(), 5);
+        Mono<QueryResponse> response;
+        if (request.getSessionId() != null) {
+            response = converse(request, startTime);
+        } else {
+            // 0. 같은(또는 유사한) 질문의 캐시된 답변 확인
+            response = lookup(request)
+                .flatMap(lookup -> {
+                    // 1~3. 관련 문서 검색 후 LLM을 통해 답변 생성
+                    Mono<AnswerCache.CachedAnswer> answer = lookup.hit() != null
+                        ? Mono.just(lookup.hit())
+                        : joinAnswer(lookup.key(), () -> retrieve(request.getQuestion(), request.getPromptType())
+                            .flatMap(retrieval -> generate(request, retrieval)));
 
-            // 2. 검색된 문서 컨텍스트 구성
-            List<String> contextDocuments = searchResults.stream()
-                .map(ChromaService.SearchResult::getDocument)
-                .collect(Collectors.toList());
+                    return respond(request, lookup, answer, startTime);
+                });
+        }
 
-            // 3. LLM을 통해 답변 생성
-            String answer = ollamaService.generate(
-                request.getQuestion(),
-                request.getPromptType(),
-                contextDocuments
-            );
-
-            // 4. 관련 문서 정보 구성
-            List<QueryResponse.RelevantDocument> relevantDocuments = searchResults.stream()
-                .map(result -> {
-                    Map<String, Object> metadata = result.metadata();
-                    return QueryResponse.RelevantDocument.builder()
-                        .documentId(getLong(metadata.get("documentId")))
-                        .fileName((String) metadata.get("fileName"))
-                        .pageNumber(getInteger(metadata.get("pageNumber")))
-                        .excerpt(truncate(result.getDocument(), 200))
-                        .similarity(result.getSimilarity())
-                        .build();
-                })
-                .collect(Collectors.toList());
+        return response.onErrorMap(e -> !(e instanceof ResponseStatusException), e -> {
+            log.error("Error processing query", e);
+            return new RuntimeException("Failed to process query", e);
+        });
+    }
+
+    /**
+     * 대화 세션 질문: 관련 문서 검색 후 세션의 context에 이어서 답변 생성
+     * (검색 결과가 이전 차례와 같으면 문서 없이 질문만 보냄)
+     */
+    private Mono<QueryResponse> converse(QueryRequest request, long startTime) {
+        return retrieve(request.getQuestion(), request.getPromptType()).flatMap(retrieval -> {
+            ConversationSessionStore.Turn turn = conversationSessions.begin(
+                request.getUserName(), request.getSessionId(), retrieval.contextDocuments());
+
+            return llmAdmissionService
+                .admit(request.getUserName(), request.getPromptType(), ollamaService.generate(
+                    request.getQuestion(), request.getPromptType(), turn.promptDocuments(), turn.context()))
+                .flatMap(generation -> Mono.fromCallable(() -> {
+                    conversationSessions.complete(turn, generation.context());
+                    int responseTime = (int) (System.currentTimeMillis() - startTime);
+                    saveHistory(request, generation.text(), retrieval.relevantDocuments(), responseTime);
+
+                    return buildResponse(request,
+                        new AnswerCache.CachedAnswer(generation.text(), retrieval.relevantDocuments()),
+                        responseTime, false, request.getSessionId());
+                }).subscribeOn(queryIoScheduler));
+        });
+    }
+
+    /**
+     * 일괄 질의 1단계: 캐시 조회 및 (캐시에 없으면) 관련 문서 검색
+     */
+    Mono<PreparedQuery> prepare(QueryRequest request) {
+        long startTime = System.currentTimeMillis();
+        return lookup(request)
+            .flatMap(lookup -> lookup.hit() != null
+                ? Mono.just(new PreparedQuery(request, lookup, null, startTime))
+                : retrieve(request.getQuestion(), request.getPromptType())
+                    .map(retrieval -> new PreparedQuery(request, lookup, retrieval, startTime)));
+    }
+
+    /**
+     * 일괄 질의 2단계: 검색 결과로 답변 생성 및 이력 저장
+     */
+    Mono<QueryResponse> answer(PreparedQuery prepared) {
+        AnswerCache.Lookup lookup = prepared.lookup();
+        Mono<AnswerCache.CachedAnswer> answer = lookup.hit() != null
+            ? Mono.just(lookup.hit())
+            : joinAnswer(lookup.key(), () -> generate(prepared.request(), prepared.retrieval()));
+
+        return respond(prepared.request(), lookup, answer, prepared.startTime())
+            .onErrorMap(e -> !(e instanceof ResponseStatusException), e -> {
+                log.error("Error processing query", e);
+                return new RuntimeException("Failed to process query", e);
+            });
+    }
+
+    /**
+     * 수락 제어를 거쳐 LLM 답변 생성
+     */
+    private Mono<AnswerCache.CachedAnswer> generate(QueryRequest request, Retrieval retrieval) {
+        return llmAdmissionService
+            .admit(request.getUserName(), request.getPromptType(), ollamaService
+                .generate(request.getQuestion(), request.getPromptType(), retrieval.contextDocuments()))
+            .map(text -> new AnswerCache.CachedAnswer(text, retrieval.relevantDocuments()));
+    }
 
+    /**
+     * 새 답변 캐시 저장, 질문 이력 저장 후 응답 생성
+     */
+    private Mono<QueryResponse> respond(QueryRequest request, AnswerCache.Lookup lookup,
+                                        Mono<AnswerCache.CachedAnswer> answer, long startTime) {
+        boolean cached = lookup.hit() != null;
+        return answer.flatMap(result -> Mono.fromCallable(() -> {
+            if (!cached) {
+                answerCache.put(lookup, result);
+            }
             int responseTime = (int) (System.currentTimeMillis() - startTime);
 
             // 5. 질문 이력 저장
-            QueryHistory history = QueryHistory.builder()
-                .question(request.getQuestion())
-                .answer(answer)
-                .promptType(request.getPromptType())
-                .userName(request.getUserName())
-                .userDepartment(request.getUserDepartment())
-                .relevantDocuments(serializeRelevantDocuments(relevantDocuments))
-                .responseTimeMs(responseTime)
-                .build();
-
-            history = queryHistoryRepository.save(history);
+            saveHistory(request, result.answer(), result.relevantDocuments(), responseTime);
 
             // 6. 응답 생성
-            return QueryResponse.builder()
-                .id(history.getId())
-                .question(request.getQuestion())
-                .answer(answer)
-                .promptType(request.getPromptType())
-                .relevantDocuments(relevantDocuments)
-                .responseTimeMs(responseTime)
-                .createdAt(history.getCreatedAt())
-                .build();
+            return buildResponse(request, result, responseTime, cached, null);
+        }).subscribeOn(queryIoScheduler));
+    }
 
-        } catch (Exception e) {
-            log.error("Error processing query", e);
-            throw new RuntimeException("Failed to process query", e);
+    private QueryResponse buildResponse(QueryRequest request, AnswerCache.CachedAnswer result,
+                                        int responseTime, boolean cached, String sessionId) {
+        return QueryResponse.builder()
+            .question(request.getQuestion())
+            .answer(result.answer())
+            .promptType(request.getPromptType())
+            .relevantDocuments(result.relevantDocuments())
+            .responseTimeMs(responseTime)
+            .cached(cached)
+            .sessionId(sessionId)
+            .createdAt(LocalDateTime.now())
+            .build();
+    }
+
+    /**
+     * 질문 처리 (SSE 스트리밍)
+     * 관련 문서(sources)를 먼저 보내고, LLM 토큰(token)을 생성되는 대로 전달한 뒤,
+     * 스트림이 끝나면 질문 이력을 저장하고 완료(done) 이벤트를 보낸다. 오류 시 error 이벤트로 종료한다.
+     * (클라이언트가 연결을 끊으면 LLM 요청도 취소되며 이력은 저장하지 않음)
+     * 세션 ID가 있으면 processQuery와 같이 캐시를 거치지 않고 세션의 context에 이어서 생성한다.
+     */
+    public Flux<ServerSentEvent<Object>> streamQuery(QueryRequest request) {
+        long startTime = System.currentTimeMillis();
+
+        Flux<ServerSentEvent<Object>> stream;
+        if (request.getSessionId() != null) {
+            stream = streamConversation(request, startTime);
+        } else {
+            stream = lookup(request)
+                .flatMapMany(lookup -> {
+                    AnswerCache.CachedAnswer cached = lookup.hit();
+                    if (cached != null) {
+                        return Flux.concat(
+                            Flux.just(event(EVENT_SOURCES, cached.relevantDocuments()), tokenEvent(cached.answer())),
+                            completeStream(request, null, true, cached, startTime)
+                        );
+                    }
+
+                    // 같은 질문이 진행 중이면 그 검색 결과와 토큰 스트림을 함께 받음
+                    AtomicReference<Retrieval> retrieval = new AtomicReference<>();
+                    StringBuilder answer = new StringBuilder();
+
+                    Flux<ServerSentEvent<Object>> events = joinStream(lookup.key(), request)
+                        .map(part -> {
+                            if (part.retrieval() != null) {
+                                retrieval.set(part.retrieval());
+                                return event(EVENT_SOURCES, part.retrieval().relevantDocuments());
+                            }
+                            answer.append(part.token());
+                            return tokenEvent(part.token());
+                        });
+
+                    Mono<ServerSentEvent<Object>> done = Mono.defer(() -> completeStream(request, lookup, false,
+                        new AnswerCache.CachedAnswer(answer.toString(), retrieval.get().relevantDocuments()),
+                        startTime));
+
+                    return Flux.concat(events, done);
+                });
         }
+
+        return stream.onErrorResume(e -> {
+            if (e instanceof TooManyRequestsException rejected) {
+                return Flux.just(event(EVENT_ERROR, Map.of(
+                    "message", rejected.getReason(),
+                    "retryAfterSeconds", rejected.getRetryAfterSeconds())));
+            }
+            log.error("Error streaming query", e);
+            return Flux.just(event(EVENT_ERROR, Map.of("message", "응답을 생성하는 중 오류가 발생했습니다.")));
+        });
+    }
+
+    /**
+     * 대화 세션 질문 스트리밍 (sources → token... → done, 스트림이 끝나면 Ollama가 돌려준 context를 세션에 저장)
+     */
+    private Flux<ServerSentEvent<Object>> streamConversation(QueryRequest request, long startTime) {
+        return retrieve(request.getQuestion(), request.getPromptType()).flatMapMany(retrieval -> {
+            ConversationSessionStore.Turn turn = conversationSessions.begin(
+                request.getUserName(), request.getSessionId(), retrieval.contextDocuments());
+            AtomicReference<int[]> context = new AtomicReference<>();
+            StringBuilder answer = new StringBuilder();
+
+            Flux<ServerSentEvent<Object>> tokens = llmAdmissionService
+                .admitMany(request.getUserName(), request.getPromptType(), ollamaService.generateStream(
+                    request.getQuestion(), request.getPromptType(), turn.promptDocuments(), turn.context()))
+                .handle((generation, sink) -> {
+                    if (generation.context() != null) {
+                        context.set(generation.context());
+                    }
+                    if (!generation.text().isEmpty()) {
+                        answer.append(generation.text());
+                        sink.next(tokenEvent(generation.text()));
+                    }
+                });
+
+            Mono<ServerSentEvent<Object>> done = Mono.defer(() -> {
+                conversationSessions.complete(turn, context.get());
+                return completeStream(request, null, false,
+                    new AnswerCache.CachedAnswer(answer.toString(), retrieval.relevantDocuments()), startTime);
+            });
+
+            return Flux.concat(Mono.just(event(EVENT_SOURCES, retrieval.relevantDocuments())), tokens, done);
+        });
+    }
+
+    /**
+     * 진행 중인 같은 질문(정규화 질문 + 프롬프트 타입)의 검색/생성에 합류하거나 새로 시작
+     * 먼저 온 요청의 결과를 동시에 들어온 요청들이 함께 받으며, 완료되면 대기 목록에서 제거한다.
+     */
+    private Mono<AnswerCache.CachedAnswer> joinAnswer(String key, Supplier<Mono<AnswerCache.CachedAnswer>> generation) {
+        return Mono.defer(() -> {
+            AtomicReference<Mono<AnswerCache.CachedAnswer>> started = new AtomicReference<>();
+            Mono<AnswerCache.CachedAnswer> pending = inFlightAnswers.computeIfAbsent(key, k -> {
+                started.set(generation.get()
+                    .doFinally(signal -> inFlightAnswers.remove(k, started.get()))
+                    .share());
+                return started.get();
+            });
+            if (pending != started.get()) {
+                log.debug("Joining in-flight generation: {}", key);
+            }
+            return pending;
+        });
+    }
+
+    /**
+     * 스트리밍 요청의 검색/생성 합류 (검색 결과 다음에 토큰이 이어지는 공유 스트림)
+     * 늦게 합류한 요청도 처음부터 다시 받으며, 합류한 요청이 모두 연결을 끊으면 LLM 요청도 취소된다.
+     */
+    private Flux<StreamPart> joinStream(String key, QueryRequest request) {
+        AtomicReference<Flux<StreamPart>> started = new AtomicReference<>();
+        Flux<StreamPart> flight = inFlightStreams.computeIfAbsent(key, k -> {
+            started.set(retrieve(request.getQuestion(), request.getPromptType())
+                .flatMapMany(retrieval -> Flux.concat(
+                    Mono.just(new StreamPart(retrieval, null)),
+                    llmAdmissionService.admitMany(request.getUserName(), request.getPromptType(),
+                            ollamaService.generateStream(request.getQuestion(), request.getPromptType(),
+                                retrieval.contextDocuments()))
+                        .map(token -> new StreamPart(null, token))))
+                .doFinally(signal -> inFlightStreams.remove(k, started.get()))
+                .replay()
+                .refCount());
+            return started.get();
+        });
+        if (flight != started.get()) {
+            log.debug("Joining in-flight stream: {}", key);
+        }
+        return flight;
+    }
+
+    /**
+     * 캐시 조회 (유사 질문 매칭 시 임베딩 계산이 블로킹이므로 질의 전용 스케줄러에서 실행)
+     */
+    private Mono<AnswerCache.Lookup> lookup(QueryRequest request) {
+        return Mono.fromCallable(() -> answerCache.lookup(request.getQuestion(), request.getPromptType()))
+            .subscribeOn(queryIoScheduler);
+    }
+
+    /**
+     * 스트림 완료: 새 답변을 캐시에 저장하고(lookup이 null이면 저장하지 않음) 질문 이력 저장 후 done 이벤트 생성
+     */
+    private Mono<ServerSentEvent<Object>> completeStream(QueryRequest request, AnswerCache.Lookup lookup,
+                                                         boolean cached, AnswerCache.CachedAnswer answer,
+                                                         long startTime) {
+        return Mono.fromCallable(() -> {
+            if (lookup != null) {
+                answerCache.put(lookup, answer);
+            }
+            int responseTime = (int) (System.currentTimeMillis() - startTime);
+            saveHistory(request, answer.answer(), answer.relevantDocuments(), responseTime);
+
+            Map<String, Object> done = new HashMap<>();
+            done.put("responseTimeMs", responseTime);
+            done.put("cached", cached);
+            if (request.getSessionId() != null) {
+                done.put("sessionId", request.getSessionId());
+            }
+            done.put("createdAt", LocalDateTime.now());
+            return event(EVENT_DONE, done);
+        }).subscribeOn(queryIoScheduler);
+    }
+
+    private ServerSentEvent<Object> tokenEvent(String token) {
+        return event(EVENT_TOKEN, Map.of("content", token));
+    }
+
+    private ServerSentEvent<Object> event(String name, Object data) {
+        return ServerSentEvent.builder(data).event(name).build();
+    }
+
+    /**
+     * 관련 문서 검색(벡터 + 키워드 하이브리드) 및 LLM 컨텍스트/응답용 문서 정보 구성
+     * (겹치는 청크 병합, 중복 제거, 프롬프트 타입별 토큰 예산 적용)
+     */
+    private Mono<Retrieval> retrieve(String question, QueryHistory.PromptType promptType) {
+        return hybridRetrievalService.retrieve(question).map(retrieved -> {
+            List<HybridRetrievalService.Passage> passages = contextAssembler.assemble(retrieved, promptType);
+
+            List<String> contextDocuments = passages.stream()
+                .map(HybridRetrievalService.Passage::text)
+                .collect(Collectors.toList());
+
+            List<QueryResponse.RelevantDocument> relevantDocuments = passages.stream()
+                .map(passage -> QueryResponse.RelevantDocument.builder()
+                    .documentId(passage.documentId())
+                    .fileName(passage.fileName())
+                    .pageNumber(passage.pageNumber())
+                    .excerpt(truncate(passage.text(), 200))
+                    .similarity(passage.similarity())
+                    .score(passage.score())
+                    .retrievedBy(passage.retrievedBy())
+                    .build())
+                .collect(Collectors.toList());
+
+            return new Retrieval(contextDocuments, relevantDocuments);
+        });
+    }
+
+    /**
+     * 질문 이력 저장 요청 (일괄 저장기에 넘기고 바로 반환)
+     */
+    private void saveHistory(QueryRequest request, String answer,
+                             List<QueryResponse.RelevantDocument> relevantDocuments, int responseTime) {
+        QueryHistory history = QueryHistory.builder()
+            .question(request.getQuestion())
+            .answer(answer)
+            .promptType(request.getPromptType())
+            .userName(request.getUserName())
+            .userDepartment(request.getUserDepartment())
+            .relevantDocuments(serializeRelevantDocuments(relevantDocuments))
+            .responseTimeMs(responseTime)
+            .build();
+
+        queryHistoryWriter.submit(history);
     }
 
     /**
@@ -161,41 +469,26 @@ public class QueryService {
     }
 
     /**
-     * 텍스트 자르기
+     * 검색 결과 (LLM 컨텍스트 + 응답용 관련 문서 정보)
      */
-    private String truncate(String text, int maxLength) {
-        if (text == null) return "";
-        if (text.length() <= maxLength) return text;
-        return text.substring(0, maxLength) + "...";
-    }
+    record Retrieval(List<String> contextDocuments, List<QueryResponse.RelevantDocument> relevantDocuments) {}
 
     /**
-     * Object to Long 변환
+     * 검색까지 마친 질의 (일괄 질의에서 검색과 생성 단계를 나누어 실행)
      */
-    private Long getLong(Object value) {
-        if (value == null) return null;
-        if (value instanceof Number) {
-            return ((Number) value).longValue();
-        }
-        try {
-            return Long.parseLong(value.toString());
-        } catch (Exception e) {
-            return null;
-        }
-    }
+    record PreparedQuery(QueryRequest request, AnswerCache.Lookup lookup, Retrieval retrieval, long startTime) {}
 
     /**
-     * Object to Integer 변환
+     * 공유 스트림 항목 (첫 항목은 검색 결과, 이후는 토큰)
      */
-    private Integer getInteger(Object value) {
-        if (value == null) return null;
-        if (value instanceof Number) {
-            return ((Number) value).intValue();
-        }
-        try {
-            return Integer.parseInt(value.toString());
-        } catch (Exception e) {
-            return null;
-        }
+    private record StreamPart(Retrieval retrieval, String token) {}
+
+    /**
+     * 텍스트 자르기
+     */
+    private String truncate(String text, int maxLength) {
+        if (text == null) return "";
+        if (text.length() <= maxLength) return text;
+        return text.substring(0, maxLength) + "...";
     }
 }
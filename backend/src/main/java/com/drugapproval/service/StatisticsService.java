@@ -23,6 +23,7 @@ public class StatisticsService {
 
     private final DocumentRepository documentRepository;
     private final QueryHistoryRepository queryHistoryRepository;
+    private final VectorStore vectorStore;
 
     /**
      * 전체 통계 조회
@@ -31,6 +32,7 @@ public class StatisticsService {
         return StatisticsDto.builder()
             .documentStatistics(getDocumentStatistics())
             .queryStatistics(getQueryStatistics())
+            .vectorStoreStatistics(getVectorStoreStatistics())
             .build();
     }
 
@@ -40,7 +42,7 @@ public class StatisticsService {
     public StatisticsDto.DocumentStatistics getDocumentStatistics() {
         long totalDocuments = documentRepository.count();
         long completedDocuments = documentRepository.countByStatus(Document.DocumentStatus.COMPLETED);
-        long processingDocuments = documentRepository.countByStatus(Document.DocumentStatus.PROCESSING);
+        long processingDocuments = documentRepository.countByStatusIn(Document.DocumentStatus.IN_PROGRESS);
         long failedDocuments = documentRepository.countByStatus(Document.DocumentStatus.FAILED);
 
         List<Object[]> statusCounts = documentRepository.countByStatusGrouped();
@@ -116,6 +118,13 @@ public class StatisticsService {
             .build();
     }
 
+    /**
+     * 벡터 저장소 통계
+     */
+    public StatisticsDto.VectorStoreStatistics getVectorStoreStatistics() {
+        return vectorStore.getStatistics();
+    }
+
     /**
      * 상위 사용자 목록
      */
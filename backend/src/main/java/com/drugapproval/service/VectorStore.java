@@ -0,0 +1,66 @@
+package com.drugapproval.service;
+
+import com.drugapproval.dto.StatisticsDto;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 청크 임베딩 저장소
+ * app.vector-store.type으로 구현을 선택한다. (chroma: ChromaDB 서버, embedded: 프로세스 내 HNSW 인덱스)
+ */
+public interface VectorStore {
+
+    /**
+     * 문서 청크 추가 (이미 존재하는 ID는 무시)
+     */
+    void addDocuments(List<String> texts, List<Map<String, Object>> metadatas, List<String> ids);
+
+    /**
+     * 유사 청크 검색 (논블로킹, 실패는 오류 신호로 전달)
+     */
+    Mono<List<SearchResult>> query(String queryText, int nResults);
+
+    /**
+     * 청크 삭제
+     */
+    void deleteDocuments(List<String> ids);
+
+    /**
+     * 원본 문서 ID에 속한 모든 청크 삭제
+     */
+    void deleteByDocumentId(Long documentId);
+
+    /**
+     * 저장소 상태 (청크 수, 양자화 방식, 측정된 검색 재현율 등 구현이 제공하는 항목만 채움)
+     */
+    StatisticsDto.VectorStoreStatistics getStatistics();
+
+    /**
+     * 검색 결과 클래스
+     */
+    class SearchResult {
+        private String id;
+        private String document;
+        private Map<String, Object> metadata;
+        private Double distance;
+        private Double similarity;
+
+        // Getters and Setters
+        public String getId() { return id; }
+        public void setId(String id) { this.id = id; }
+
+        public String getDocument() { return document; }
+        public void setDocument(String document) { this.document = document; }
+
+        public Map<String, Object> metadata() { return metadata; }
+        public void setMetadata(Map<String, Object> metadata) { this.metadata = metadata; }
+
+        public Double getDistance() { return distance; }
+        public void setDistance(Double distance) { this.distance = distance; }
+
+        public Double getSimilarity() { return similarity; }
+        public void setSimilarity(Double similarity) { this.similarity = similarity; }
+    }
+}
@@ -0,0 +1,638 @@
+package com.drugapproval.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * BM25 역색인 (여러 필드, 디스크 세그먼트)
+ * 추가 요청마다 변경되지 않는 세그먼트 파일을 하나 기록하고, 세그먼트 수가 maxSegments를 넘으면 모두 하나로 병합한다.
+ * 세그먼트는 메모리 매핑하여 용어 사전만 힙의 해시맵에 올리고, 포스팅 목록은 (문서 번호 차이, 빈도)를
+ * 가변 길이 바이트로 압축해 둔다. 삭제는 세그먼트별 삭제 비트맵(.del)으로 표시하고 병합 시 제거한다.
+ * 문서 점수는 필드별 BM25 점수에 가중치를 곱한 값 중 최댓값이다. (OpenSearch multi_match best_fields와 같음)
+ * 동기화하지 않으므로 추가/삭제는 호출자가 배타적으로 실행해야 한다. (검색끼리는 동시에 실행 가능)
+ */
+@Slf4j
+public class Bm25Index {
+
+    private static final String MANIFEST_FILE = "segments.txt";
+    private static final String SEGMENT_PREFIX = "seg_";
+    private static final String SEGMENT_SUFFIX = ".bm25";
+    private static final String DELETES_SUFFIX = ".del";
+    private static final int SEGMENT_VERSION = 1;
+
+    private final Path directory;
+    private final int fieldCount;
+    private final int maxSegments;
+    private final double k1;
+    private final double b;
+    private final List<Segment> segments = new ArrayList<>();
+    /** 삭제되지 않은 문서 ID → 위치 */
+    private final Map<String, DocRef> liveDocs = new HashMap<>();
+    private final long[] totalLengths;
+    private long generation;
+
+    private Bm25Index(Path directory, int fieldCount, int maxSegments, double k1, double b) {
+        this.directory = directory;
+        this.fieldCount = fieldCount;
+        this.maxSegments = Math.max(1, maxSegments);
+        this.k1 = k1;
+        this.b = b;
+        this.totalLengths = new long[fieldCount];
+    }
+
+    /**
+     * 목록 파일에 기록된 세그먼트 열기 (목록에 없는 세그먼트 파일은 기록 중 중단된 것이므로 삭제)
+     */
+    public static Bm25Index open(Path directory, int fieldCount, int maxSegments, double k1, double b)
+        throws IOException {
+        Files.createDirectories(directory);
+        Bm25Index index = new Bm25Index(directory, fieldCount, maxSegments, k1, b);
+
+        Path manifest = directory.resolve(MANIFEST_FILE);
+        List<String> names = Files.isRegularFile(manifest)
+            ? Files.readAllLines(manifest, StandardCharsets.UTF_8).stream().filter(name -> !name.isBlank()).toList()
+            : List.of();
+        for (String name : names) {
+            Segment segment = Segment.open(directory, name);
+            if (segment.fieldCount != fieldCount) {
+                throw new IOException(
+                    "Segment " + name + " has " + segment.fieldCount + " fields, expected " + fieldCount);
+            }
+            index.register(segment);
+            index.generation = Math.max(index.generation, generationOf(name) + 1);
+        }
+
+        Set<String> keep = new HashSet<>();
+        for (String name : names) {
+            keep.add(name + SEGMENT_SUFFIX);
+            keep.add(name + DELETES_SUFFIX);
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                String fileName = file.getFileName().toString();
+                if (fileName.startsWith(SEGMENT_PREFIX) && !keep.contains(fileName)) {
+                    Files.delete(file);
+                }
+            }
+        }
+        return index;
+    }
+
+    public int size() {
+        return liveDocs.size();
+    }
+
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * 문서 추가 (같은 ID의 기존 문서는 삭제로 표시)
+     */
+    public void add(List<Doc> docs) throws IOException {
+        if (docs.isEmpty()) {
+            return;
+        }
+        Map<String, Doc> unique = new LinkedHashMap<>();
+        for (Doc doc : docs) {
+            unique.remove(doc.id());
+            unique.put(doc.id(), doc);
+        }
+
+        SegmentBuilder builder = new SegmentBuilder(fieldCount);
+        for (Doc doc : unique.values()) {
+            builder.addDocument(doc);
+        }
+        Segment segment = builder.write(directory, nextName());
+
+        // 목록 파일을 먼저 기록하고 기존 문서를 삭제 표시 (그 사이 중단되어도 열 때 나중 세그먼트가 우선함)
+        List<Segment> updated = new ArrayList<>(segments);
+        updated.add(segment);
+        writeManifest(updated);
+        register(segment);
+
+        if (segments.size() > maxSegments) {
+            merge();
+        }
+    }
+
+    /**
+     * 원본 문서 ID에 속한 문서 삭제
+     * @return 삭제된 문서 수
+     */
+    public int deleteByDocumentId(long documentId) throws IOException {
+        int removed = 0;
+        for (Segment segment : segments) {
+            int before = removed;
+            for (int doc = 0; doc < segment.docCount; doc++) {
+                if (segment.documentIds[doc] == documentId && !segment.deleted.get(doc)) {
+                    markDeleted(segment, doc);
+                    removed++;
+                }
+            }
+            if (removed > before) {
+                segment.writeDeletes();
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * BM25 검색
+     * @param boosts 필드별 가중치 (0이면 해당 필드 제외)
+     * @return 점수 내림차순 최대 size개
+     */
+    public List<Hit> search(String query, int size, float[] boosts) {
+        Set<String> terms = new LinkedHashSet<>();
+        for (KoreanTokenizer.Token token : KoreanTokenizer.tokenize(query)) {
+            terms.add(token.term());
+        }
+        int live = liveDocs.size();
+        if (terms.isEmpty() || live == 0 || size <= 0) {
+            return List.of();
+        }
+
+        // 필드별 평균 길이와 용어별 IDF (전체 세그먼트 기준)
+        double[] averageLengths = new double[fieldCount];
+        List<String> keys = new ArrayList<>();
+        List<Integer> keyFields = new ArrayList<>();
+        List<Double> idfs = new ArrayList<>();
+        for (int field = 0; field < fieldCount; field++) {
+            averageLengths[field] = Math.max(1.0, (double) totalLengths[field] / live);
+            if (boosts[field] <= 0) {
+                continue;
+            }
+            for (String term : terms) {
+                String key = key(field, term);
+                int docFreq = 0;
+                for (Segment segment : segments) {
+                    Term info = segment.terms.get(key);
+                    docFreq += info != null ? info.docFreq() : 0;
+                }
+                if (docFreq > 0) {
+                    docFreq = Math.min(docFreq, live);
+                    keys.add(key);
+                    keyFields.add(field);
+                    idfs.add(Math.log(1 + (live - docFreq + 0.5) / (docFreq + 0.5)));
+                }
+            }
+        }
+
+        PriorityQueue<Scored> top = new PriorityQueue<>(Comparator.comparingDouble(Scored::score));
+        for (Segment segment : segments) {
+            Map<Integer, double[]> accumulators = new HashMap<>();
+            for (int i = 0; i < keys.size(); i++) {
+                Term info = segment.terms.get(keys.get(i));
+                if (info == null) {
+                    continue;
+                }
+                int field = keyFields.get(i);
+                double idf = idfs.get(i);
+                int[] lengths = segment.lengths[field];
+                PostingsReader postings = new PostingsReader(segment.data, segment.postingsBase + info.offset(),
+                    info.docFreq());
+                while (postings.next()) {
+                    int doc = postings.doc;
+                    if (segment.deleted.get(doc)) {
+                        continue;
+                    }
+                    double norm = k1 * (1 - b + b * lengths[doc] / averageLengths[field]);
+                    double score = idf * postings.freq * (k1 + 1) / (postings.freq + norm);
+                    accumulators.computeIfAbsent(doc, d -> new double[fieldCount])[field] += score;
+                }
+            }
+            for (Map.Entry<Integer, double[]> entry : accumulators.entrySet()) {
+                double score = 0;
+                for (int field = 0; field < fieldCount; field++) {
+                    score = Math.max(score, boosts[field] * entry.getValue()[field]);
+                }
+                if (top.size() < size || score > top.peek().score()) {
+                    top.add(new Scored(segment, entry.getKey(), score));
+                    if (top.size() > size) {
+                        top.poll();
+                    }
+                }
+            }
+        }
+
+        List<Scored> ranked = new ArrayList<>(top);
+        ranked.sort(Comparator.comparingDouble(Scored::score).reversed());
+        List<Hit> hits = new ArrayList<>(ranked.size());
+        for (Scored scored : ranked) {
+            hits.add(new Hit(scored.segment().ids[scored.doc()], scored.score(),
+                scored.segment().stored(scored.doc())));
+        }
+        return hits;
+    }
+
+    /**
+     * 모든 세그먼트의 삭제되지 않은 문서를 포스팅 단위로 이어 붙여 세그먼트 하나로 병합
+     */
+    private void merge() throws IOException {
+        long startTime = System.currentTimeMillis();
+        SegmentBuilder builder = new SegmentBuilder(fieldCount);
+        List<int[]> remaps = new ArrayList<>();
+        for (Segment segment : segments) {
+            int[] remap = new int[segment.docCount];
+            for (int doc = 0; doc < segment.docCount; doc++) {
+                remap[doc] = segment.deleted.get(doc) ? -1 : builder.copyDocument(segment, doc);
+            }
+            remaps.add(remap);
+        }
+
+        TreeSet<String> keys = new TreeSet<>();
+        for (Segment segment : segments) {
+            keys.addAll(segment.terms.keySet());
+        }
+        for (String key : keys) {
+            for (int i = 0; i < segments.size(); i++) {
+                Segment segment = segments.get(i);
+                Term info = segment.terms.get(key);
+                if (info == null) {
+                    continue;
+                }
+                PostingsReader postings = new PostingsReader(segment.data, segment.postingsBase + info.offset(),
+                    info.docFreq());
+                while (postings.next()) {
+                    int doc = remaps.get(i)[postings.doc];
+                    if (doc >= 0) {
+                        builder.addPosting(key, doc, postings.freq);
+                    }
+                }
+            }
+        }
+
+        Segment merged = builder.write(directory, nextName());
+        List<Segment> previous = new ArrayList<>(segments);
+        writeManifest(List.of(merged));
+        segments.clear();
+        liveDocs.clear();
+        Arrays.fill(totalLengths, 0);
+        register(merged);
+        for (Segment segment : previous) {
+            segment.deleteFiles();
+        }
+        log.info("Merged {} keyword index segments into one ({} documents, {}ms)",
+            previous.size(), merged.docCount, System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * 세그먼트를 검색 대상에 추가 (같은 ID가 앞선 세그먼트에 있으면 그쪽을 삭제 표시)
+     */
+    private void register(Segment segment) throws IOException {
+        Set<Segment> touched = new HashSet<>();
+        for (int doc = 0; doc < segment.docCount; doc++) {
+            if (segment.deleted.get(doc)) {
+                continue;
+            }
+            DocRef previous = liveDocs.get(segment.ids[doc]);
+            if (previous != null) {
+                markDeleted(previous.segment(), previous.doc());
+                touched.add(previous.segment());
+            }
+            liveDocs.put(segment.ids[doc], new DocRef(segment, doc));
+            for (int field = 0; field < fieldCount; field++) {
+                totalLengths[field] += segment.lengths[field][doc];
+            }
+        }
+        segments.add(segment);
+        for (Segment previous : touched) {
+            previous.writeDeletes();
+        }
+    }
+
+    private void markDeleted(Segment segment, int doc) {
+        segment.deleted.set(doc);
+        liveDocs.remove(segment.ids[doc]);
+        for (int field = 0; field < fieldCount; field++) {
+            totalLengths[field] -= segment.lengths[field][doc];
+        }
+    }
+
+    private void writeManifest(List<Segment> list) throws IOException {
+        Path target = directory.resolve(MANIFEST_FILE);
+        Path temp = directory.resolve(MANIFEST_FILE + ".tmp");
+        Files.write(temp, list.stream().map(segment -> segment.name).toList(), StandardCharsets.UTF_8);
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private String nextName() {
+        return SEGMENT_PREFIX + generation++;
+    }
+
+    private static long generationOf(String name) {
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length()));
+    }
+
+    private static String key(int field, String term) {
+        return field + ":" + term;
+    }
+
+    /**
+     * 색인할 문서
+     * @param fields 필드별 본문 (null 허용)
+     * @param stored 검색 결과로 돌려줄 원본 (직렬화된 바이트)
+     */
+    public record Doc(String id, long documentId, String[] fields, byte[] stored) {
+    }
+
+    /**
+     * 검색 결과
+     */
+    public record Hit(String id, double score, byte[] stored) {
+    }
+
+    private record DocRef(Segment segment, int doc) {
+    }
+
+    private record Scored(Segment segment, int doc, double score) {
+    }
+
+    private record Term(int docFreq, int offset, int length) {
+    }
+
+    /**
+     * 포스팅 목록 순회 (문서 번호 차이와 빈도를 가변 길이 정수로 읽음)
+     */
+    private static final class PostingsReader {
+
+        private final MappedByteBuffer data;
+        private int position;
+        private int remaining;
+        private int doc;
+        private int freq;
+
+        PostingsReader(MappedByteBuffer data, int position, int count) {
+            this.data = data;
+            this.position = position;
+            this.remaining = count;
+        }
+
+        boolean next() {
+            if (remaining == 0) {
+                return false;
+            }
+            remaining--;
+            doc += readVarInt();
+            freq = readVarInt();
+            return true;
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            int shift = 0;
+            byte current;
+            do {
+                current = data.get(position++);
+                value |= (current & 0x7F) << shift;
+                shift += 7;
+            } while ((current & 0x80) != 0);
+            return value;
+        }
+    }
+
+    /**
+     * 새 세그먼트 구성 (용어별 포스팅을 압축된 바이트로 바로 쌓음, 문서는 번호 순서대로 추가)
+     */
+    private static final class SegmentBuilder {
+
+        private final int fieldCount;
+        private final List<String> ids = new ArrayList<>();
+        private final List<Long> documentIds = new ArrayList<>();
+        private final List<int[]> lengths = new ArrayList<>();
+        private final List<byte[]> stored = new ArrayList<>();
+        private final Map<String, PostingsWriter> postings = new HashMap<>();
+
+        SegmentBuilder(int fieldCount) {
+            this.fieldCount = fieldCount;
+        }
+
+        void addDocument(Doc doc) {
+            int number = ids.size();
+            int[] fieldLengths = new int[fieldCount];
+            for (int field = 0; field < fieldCount; field++) {
+                String text = field < doc.fields().length ? doc.fields()[field] : null;
+                Map<String, Integer> frequencies = new LinkedHashMap<>();
+                for (KoreanTokenizer.Token token : KoreanTokenizer.tokenize(text)) {
+                    frequencies.merge(token.term(), 1, Integer::sum);
+                    fieldLengths[field]++;
+                }
+                for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                    addPosting(key(field, entry.getKey()), number, entry.getValue());
+                }
+            }
+            ids.add(doc.id());
+            documentIds.add(doc.documentId());
+            lengths.add(fieldLengths);
+            stored.add(doc.stored());
+        }
+
+        int copyDocument(Segment segment, int doc) {
+            int[] fieldLengths = new int[fieldCount];
+            for (int field = 0; field < fieldCount; field++) {
+                fieldLengths[field] = segment.lengths[field][doc];
+            }
+            ids.add(segment.ids[doc]);
+            documentIds.add(segment.documentIds[doc]);
+            lengths.add(fieldLengths);
+            stored.add(segment.stored(doc));
+            return ids.size() - 1;
+        }
+
+        void addPosting(String key, int doc, int freq) {
+            postings.computeIfAbsent(key, k -> new PostingsWriter()).add(doc, freq);
+        }
+
+        /**
+         * 세그먼트 파일 기록: [헤더 길이][헤더(문서 표, 용어 사전)][포스팅][원본]
+         */
+        Segment write(Path directory, String name) throws IOException {
+            List<String> keys = new ArrayList<>(postings.keySet());
+            keys.sort(null);
+
+            ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+            DataOutputStream header = new DataOutputStream(headerBytes);
+            header.writeInt(SEGMENT_VERSION);
+            header.writeInt(fieldCount);
+            header.writeInt(ids.size());
+            for (int doc = 0; doc < ids.size(); doc++) {
+                header.writeUTF(ids.get(doc));
+                header.writeLong(documentIds.get(doc));
+                for (int length : lengths.get(doc)) {
+                    header.writeInt(length);
+                }
+                header.writeInt(stored.get(doc).length);
+            }
+            header.writeInt(keys.size());
+            for (String key : keys) {
+                PostingsWriter writer = postings.get(key);
+                header.writeUTF(key);
+                header.writeInt(writer.count);
+                header.writeInt(writer.bytes.size());
+            }
+            header.flush();
+
+            Path target = directory.resolve(name + SEGMENT_SUFFIX);
+            Path temp = directory.resolve(name + SEGMENT_SUFFIX + ".tmp");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                new DataOutputStream(out).writeInt(headerBytes.size());
+                headerBytes.writeTo(out);
+                for (String key : keys) {
+                    postings.get(key).bytes.writeTo(out);
+                }
+                for (byte[] bytes : stored) {
+                    out.write(bytes);
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return Segment.open(directory, name);
+        }
+    }
+
+    /**
+     * 용어 하나의 포스팅 (문서 번호 차이, 빈도)을 가변 길이 정수로 압축
+     */
+    private static final class PostingsWriter {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private int count;
+        private int lastDoc;
+
+        void add(int doc, int freq) {
+            writeVarInt(doc - lastDoc);
+            writeVarInt(freq);
+            lastDoc = doc;
+            count++;
+        }
+
+        private void writeVarInt(int value) {
+            while ((value & ~0x7F) != 0) {
+                bytes.write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes.write(value);
+        }
+    }
+
+    /**
+     * 기록된 세그먼트 (파일 전체를 읽기 전용으로 매핑)
+     */
+    private static final class Segment {
+
+        private final Path directory;
+        private final String name;
+        private final int fieldCount;
+        private final int docCount;
+        private final String[] ids;
+        private final long[] documentIds;
+        private final int[][] lengths;
+        private final int[] storedOffsets;
+        private final int[] storedLengths;
+        private final Map<String, Term> terms;
+        private final MappedByteBuffer data;
+        private final int postingsBase;
+        private final int storedBase;
+        private final BitSet deleted;
+
+        private Segment(Path directory, String name, MappedByteBuffer data) throws IOException {
+            this.directory = directory;
+            this.name = name;
+            this.data = data;
+
+            byte[] headerBytes = new byte[data.getInt(0)];
+            data.get(Integer.BYTES, headerBytes);
+            DataInputStream header = new DataInputStream(new ByteArrayInputStream(headerBytes));
+            int version = header.readInt();
+            if (version != SEGMENT_VERSION) {
+                throw new IOException("Unsupported keyword segment version: " + version);
+            }
+            fieldCount = header.readInt();
+            docCount = header.readInt();
+            ids = new String[docCount];
+            documentIds = new long[docCount];
+            lengths = new int[fieldCount][docCount];
+            storedOffsets = new int[docCount];
+            storedLengths = new int[docCount];
+            int storedOffset = 0;
+            for (int doc = 0; doc < docCount; doc++) {
+                ids[doc] = header.readUTF();
+                documentIds[doc] = header.readLong();
+                for (int field = 0; field < fieldCount; field++) {
+                    lengths[field][doc] = header.readInt();
+                }
+                storedLengths[doc] = header.readInt();
+                storedOffsets[doc] = storedOffset;
+                storedOffset += storedLengths[doc];
+            }
+            int termCount = header.readInt();
+            terms = new HashMap<>(termCount * 2);
+            int postingsOffset = 0;
+            for (int i = 0; i < termCount; i++) {
+                String key = header.readUTF();
+                int docFreq = header.readInt();
+                int length = header.readInt();
+                terms.put(key, new Term(docFreq, postingsOffset, length));
+                postingsOffset += length;
+            }
+            postingsBase = Integer.BYTES + headerBytes.length;
+            storedBase = postingsBase + postingsOffset;
+
+            Path deletes = directory.resolve(name + DELETES_SUFFIX);
+            deleted = Files.isRegularFile(deletes) ? BitSet.valueOf(Files.readAllBytes(deletes)) : new BitSet(docCount);
+        }
+
+        static Segment open(Path directory, String name) throws IOException {
+            try (FileChannel channel = FileChannel.open(directory.resolve(name + SEGMENT_SUFFIX))) {
+                if (channel.size() > Integer.MAX_VALUE) {
+                    throw new IOException("Keyword segment " + name + " exceeds 2GB");
+                }
+                return new Segment(directory, name, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            }
+        }
+
+        byte[] stored(int doc) {
+            byte[] bytes = new byte[storedLengths[doc]];
+            data.get(storedBase + storedOffsets[doc], bytes);
+            return bytes;
+        }
+
+        void writeDeletes() throws IOException {
+            Path target = directory.resolve(name + DELETES_SUFFIX);
+            Path temp = directory.resolve(name + DELETES_SUFFIX + ".tmp");
+            Files.write(temp, deleted.toByteArray());
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        void deleteFiles() throws IOException {
+            Files.deleteIfExists(directory.resolve(name + SEGMENT_SUFFIX));
+            Files.deleteIfExists(directory.resolve(name + DELETES_SUFFIX));
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.drugapproval.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 청크 스트리밍 파이프라인 (추출 → 청크 → 배치 → 저장)
+ * 생산자(PDF 추출 스레드)가 청크를 배치로 묶어 유한 큐에 넣으면 저장 스레드가 꺼내어 저장한다.
+ * 큐가 가득 차면 생산자가 대기하므로 메모리에는 최대 (큐 용량 + 2)개의 배치만 존재한다.
+ */
+@Slf4j
+public class ChunkPipeline implements AutoCloseable {
+
+    private static final List<PdfProcessor.TextChunk> END_OF_STREAM = new ArrayList<>(0);
+
+    private final int batchSize;
+    private final BatchSink sink;
+    private final BlockingQueue<List<PdfProcessor.TextChunk>> queue;
+    private final CompletableFuture<Void> storeTask;
+
+    private List<PdfProcessor.TextChunk> currentBatch;
+    private volatile Throwable failure;
+    private volatile boolean aborted;
+    private boolean completed;
+    private int chunkCount;
+    private int batchCount;
+
+    public ChunkPipeline(int batchSize, int queueCapacity, BatchSink sink, Executor storeExecutor) {
+        this.batchSize = Math.max(1, batchSize);
+        this.sink = sink;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.currentBatch = new ArrayList<>(this.batchSize);
+        this.storeTask = CompletableFuture.runAsync(this::runStore, storeExecutor);
+    }
+
+    /**
+     * 청크 추가 (배치가 차면 큐로 넘기고, 큐가 가득 차 있으면 자리가 날 때까지 대기)
+     */
+    public void accept(PdfProcessor.TextChunk chunk) throws IOException {
+        currentBatch.add(chunk);
+        chunkCount++;
+        if (currentBatch.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * 남은 배치를 넘기고 저장이 모두 끝날 때까지 대기
+     * @return 저장된 청크 수
+     */
+    public int complete() throws IOException {
+        flush();
+        enqueue(END_OF_STREAM);
+        completed = true;
+
+        try {
+            storeTask.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for chunk store");
+        } catch (ExecutionException e) {
+            throw new IOException("Chunk store failed", e.getCause());
+        }
+        checkFailure();
+
+        log.debug("Chunk pipeline completed: {} chunks in {} batches", chunkCount, batchCount);
+        return chunkCount;
+    }
+
+    /**
+     * 완료되지 않은 파이프라인 중단 (남은 배치는 저장하지 않음)
+     */
+    @Override
+    public void close() {
+        if (completed) {
+            return;
+        }
+        aborted = true;
+        queue.clear();
+        queue.offer(END_OF_STREAM);
+    }
+
+    private void flush() throws IOException {
+        if (currentBatch.isEmpty()) {
+            return;
+        }
+        enqueue(currentBatch);
+        batchCount++;
+        currentBatch = new ArrayList<>(batchSize);
+    }
+
+    private void enqueue(List<PdfProcessor.TextChunk> batch) throws IOException {
+        try {
+            while (!queue.offer(batch, 1, TimeUnit.SECONDS)) {
+                checkFailure();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while queueing chunk batch");
+        }
+        checkFailure();
+    }
+
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw new IOException("Chunk store failed: " + failure.getMessage(), failure);
+        }
+    }
+
+    private void runStore() {
+        try {
+            while (true) {
+                List<PdfProcessor.TextChunk> batch = queue.take();
+                if (batch == END_OF_STREAM || aborted) {
+                    return;
+                }
+                sink.store(batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = e;
+        } catch (Throwable t) {
+            failure = t;
+        } finally {
+            if (failure != null) {
+                // 대기 중인 생산자가 실패를 감지할 수 있도록 큐를 비움
+                queue.clear();
+            }
+        }
+    }
+
+    /**
+     * 배치 저장소
+     */
+    @FunctionalInterface
+    public interface BatchSink {
+        void store(List<PdfProcessor.TextChunk> batch) throws Exception;
+    }
+}
@@ -0,0 +1,175 @@
+package com.drugapproval.util;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 수집 단계 사이에 추출 결과(페이지, 청크)를 보관하는 로컬 디스크 스풀
+ * 문서별 디렉토리에 JSON Lines 파일로 기록하며, 완료된 파일만 최종 이름으로 옮겨
+ * 재시도 시 중간에 끊긴 파일을 읽지 않도록 한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChunkSpool {
+
+    private static final String PAGES_FILE = "pages.jsonl";
+    private static final String CHUNKS_FILE = "chunks.jsonl";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.ingestion.spool-directory:${app.upload.directory}/.ingestion}")
+    private String spoolDirectory;
+
+    /**
+     * 새 스풀 기록 시작 (기존 스풀은 삭제)
+     */
+    public Writer openWriter(Long documentId) throws IOException {
+        delete(documentId);
+        Path directory = directory(documentId);
+        Files.createDirectories(directory);
+        return new Writer(directory, true);
+    }
+
+    /**
+     * 스풀된 페이지는 유지하고 청크 파일만 새로 기록
+     */
+    public Writer openChunkWriter(Long documentId) throws IOException {
+        return new Writer(directory(documentId), false);
+    }
+
+    public boolean hasPages(Long documentId) {
+        return Files.isRegularFile(directory(documentId).resolve(PAGES_FILE));
+    }
+
+    public boolean hasChunks(Long documentId) {
+        return Files.isRegularFile(directory(documentId).resolve(CHUNKS_FILE));
+    }
+
+    /**
+     * 스풀된 페이지를 순서대로 읽어 전달
+     */
+    public void forEachPage(Long documentId, PdfProcessor.PageHandler handler) throws IOException {
+        try (MappingIterator<PdfProcessor.PageContent> pages = objectMapper
+            .readerFor(PdfProcessor.PageContent.class)
+            .readValues(directory(documentId).resolve(PAGES_FILE).toFile())) {
+            while (pages.hasNextValue()) {
+                handler.onPage(pages.nextValue());
+            }
+        }
+    }
+
+    /**
+     * 스풀된 청크를 배치 단위로 읽어 전달 (메모리에는 한 배치만 유지)
+     */
+    public void forEachChunkBatch(Long documentId, int batchSize, ChunkPipeline.BatchSink sink) throws Exception {
+        try (MappingIterator<PdfProcessor.TextChunk> chunks = objectMapper
+            .readerFor(PdfProcessor.TextChunk.class)
+            .readValues(directory(documentId).resolve(CHUNKS_FILE).toFile())) {
+            List<PdfProcessor.TextChunk> batch = new ArrayList<>(batchSize);
+            while (chunks.hasNextValue()) {
+                batch.add(chunks.nextValue());
+                if (batch.size() >= batchSize) {
+                    sink.store(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                sink.store(batch);
+            }
+        }
+    }
+
+    /**
+     * 문서 스풀 삭제
+     */
+    public void delete(Long documentId) {
+        try {
+            FileUtils.deleteDirectory(directory(documentId).toFile());
+        } catch (IOException e) {
+            log.warn("Failed to delete ingestion spool of document {}: {}", documentId, e.getMessage());
+        }
+    }
+
+    private Path directory(Long documentId) {
+        return Paths.get(spoolDirectory, documentId.toString());
+    }
+
+    /**
+     * 스풀 기록기 (페이지/청크 파일을 각각 완료 처리)
+     */
+    public class Writer implements AutoCloseable {
+
+        private final Path directory;
+        private final BufferedWriter pagesOut;
+        private final BufferedWriter chunksOut;
+        private final SequenceWriter pages;
+        private final SequenceWriter chunks;
+
+        private Writer(Path directory, boolean includePages) throws IOException {
+            this.directory = directory;
+            this.pagesOut = includePages
+                ? Files.newBufferedWriter(directory.resolve(PAGES_FILE + TEMP_SUFFIX), StandardCharsets.UTF_8)
+                : null;
+            this.chunksOut = Files.newBufferedWriter(directory.resolve(CHUNKS_FILE + TEMP_SUFFIX), StandardCharsets.UTF_8);
+            this.pages = includePages ? objectMapper.writer().withRootValueSeparator("\n").writeValues(pagesOut) : null;
+            this.chunks = objectMapper.writer().withRootValueSeparator("\n").writeValues(chunksOut);
+        }
+
+        public void writePage(PdfProcessor.PageContent page) throws IOException {
+            pages.write(page);
+        }
+
+        public void writeChunk(PdfProcessor.TextChunk chunk) throws IOException {
+            chunks.write(chunk);
+        }
+
+        /**
+         * 페이지 파일 완료 (EXTRACTED 체크포인트)
+         */
+        public void commitPages() throws IOException {
+            pages.close();
+            commit(PAGES_FILE);
+        }
+
+        /**
+         * 청크 파일 완료 (CHUNKED 체크포인트)
+         */
+        public void commitChunks() throws IOException {
+            chunks.close();
+            commit(CHUNKS_FILE);
+        }
+
+        private void commit(String fileName) throws IOException {
+            Files.move(directory.resolve(fileName + TEMP_SUFFIX), directory.resolve(fileName),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (pages != null) {
+                pages.close();
+                pagesOut.close();
+            }
+            chunks.close();
+            chunksOut.close();
+        }
+    }
+}
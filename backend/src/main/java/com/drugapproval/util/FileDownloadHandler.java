@@ -0,0 +1,160 @@
+package com.drugapproval.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * 파일 다운로드 응답 처리
+ * 조건부 요청(ETag/Last-Modified → 304), 단일 바이트 구간 요청(206)을 지원하고,
+ * 본문은 Tomcat sendfile 또는 FileChannel.transferTo로 사용자 영역 버퍼 복사 없이 전송한다.
+ */
+@Slf4j
+@Component
+public class FileDownloadHandler {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Value("${app.download.sendfile-min-size:49152}")
+    private long sendfileMinSize;
+
+    /**
+     * 파일 응답 전송
+     * @param etag 강한 ETag (따옴표 포함)
+     * @param contentType Content-Type 값
+     * @param contentDisposition Content-Disposition 값
+     */
+    public void serve(File file, String etag, String contentType, String contentDisposition,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!file.isFile()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        long length = file.length();
+        long lastModified = file.lastModified();
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition);
+
+        // If-None-Match / If-Modified-Since → 304
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        boolean partial = false;
+
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && isRangeApplicable(request, etag, lastModified)) {
+            HttpRange range = parseSingleRange(rangeHeader);
+            if (range != null) {
+                if (length == 0 || !isSatisfiable(range, length)) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                start = range.getRangeStart(length);
+                end = range.getRangeEnd(length);
+                partial = true;
+            }
+        }
+
+        long contentLength = end - start + 1;
+        response.setContentType(contentType);
+        response.setContentLengthLong(Math.max(contentLength, 0));
+        if (partial) {
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        } else {
+            response.setStatus(HttpServletResponse.SC_OK);
+        }
+
+        if (HttpMethod.HEAD.matches(request.getMethod()) || contentLength <= 0) {
+            return;
+        }
+
+        // Tomcat NIO 커넥터가 sendfile을 지원하면 커넥터에 전송을 위임 (커널에서 직접 소켓으로 복사)
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT)) && contentLength >= sendfileMinSize) {
+            request.setAttribute(SENDFILE_FILENAME, file.getAbsolutePath());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = contentLength;
+            while (remaining > 0) {
+                long transferred = channel.transferTo(position, remaining, out);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+    }
+
+    /**
+     * If-Range가 있으면 현재 ETag/수정 시각과 정확히 일치할 때만 구간 요청을 적용 (RFC 7233 3.2)
+     */
+    private boolean isRangeApplicable(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            long ifRangeTime = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return ifRangeTime != -1 && lastModified / 1000 == ifRangeTime / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 단일 구간만 지원 (다중 구간 또는 잘못된 헤더는 무시하고 전체 응답)
+     */
+    private HttpRange parseSingleRange(String rangeHeader) {
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            log.debug("Ignoring invalid Range header: {}", rangeHeader);
+            return null;
+        }
+    }
+
+    private boolean isSatisfiable(HttpRange range, long length) {
+        try {
+            long start = range.getRangeStart(length);
+            long end = range.getRangeEnd(length);
+            return start < length && start <= end;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
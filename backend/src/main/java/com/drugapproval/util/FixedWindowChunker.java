@@ -0,0 +1,48 @@
+package com.drugapproval.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 고정 길이(문자 수) 창으로 페이지를 나누는 청크 분할기 (기존 방식)
+ */
+public class FixedWindowChunker implements TextChunker {
+
+    private final int chunkSize;
+    private final int overlap;
+
+    public FixedWindowChunker(int chunkSize, int overlap) {
+        this.chunkSize = Math.max(1, chunkSize);
+        this.overlap = Math.max(0, Math.min(overlap, this.chunkSize - 1));
+    }
+
+    @Override
+    public Session open() {
+        return new Session() {
+            @Override
+            public List<PdfProcessor.TextChunk> addPage(PdfProcessor.PageContent page) {
+                List<PdfProcessor.TextChunk> chunks = new ArrayList<>();
+                String text = page.text();
+                int start = 0;
+                int chunkIndex = 0;
+
+                while (start < text.length()) {
+                    int end = Math.min(start + chunkSize, text.length());
+                    chunks.add(new PdfProcessor.TextChunk(
+                        page.pageNumber(), chunkIndex++, new TextSpan(text, start, end), start, end));
+                    if (end == text.length()) {
+                        break;
+                    }
+                    start = end - overlap;
+                }
+
+                return chunks;
+            }
+
+            @Override
+            public List<PdfProcessor.TextChunk> finish() {
+                return List.of();
+            }
+        };
+    }
+}
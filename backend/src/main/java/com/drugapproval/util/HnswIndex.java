@@ -0,0 +1,559 @@
+package com.drugapproval.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.function.IntPredicate;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * HNSW(Hierarchical Navigable Small World) 근사 최근접 이웃 인덱스
+ * 벡터는 정규화하여 세그먼트 단위로 메모리 매핑한 파일(vectors.bin)에 두고 힙에는 계층별 이웃 목록만 유지한다.
+ * 그래프는 save() 시 graph.bin에 통째로 기록하며, 거리는 코사인 거리(1 - 내적)이다.
+ * int8 양자화 모드에서는 벡터별 배율 + 성분별 1바이트 코드를 codes.bin에 함께 기록하고, 검색 시 그래프 탐색은
+ * 코드의 정수 내적으로 하고 상위 후보만 float 벡터로 다시 계산한다. (탐색 중 읽는 벡터 데이터가 약 1/4로 줄어듦)
+ * 동기화하지 않으므로 추가/저장은 호출자가 배타적으로 실행해야 한다. (검색끼리는 동시에 실행 가능)
+ */
+public class HnswIndex implements Closeable {
+
+    private static final String VECTORS_FILE = "vectors.bin";
+    private static final String CODES_FILE = "codes.bin";
+    private static final String GRAPH_FILE = "graph.bin";
+    private static final int GRAPH_VERSION = 2;
+    /** 세그먼트 하나에 매핑하는 최대 벡터 수 */
+    private static final int SEGMENT_VECTORS = 16384;
+    private static final int[] NO_LINKS = new int[0];
+
+    private static final Comparator<Neighbor> NEAREST_FIRST = Comparator.comparingDouble(Neighbor::distance);
+    private static final Comparator<Neighbor> FARTHEST_FIRST = NEAREST_FIRST.reversed();
+
+    private final Path directory;
+    private final int dimension;
+    private final int maxLinks;
+    private final int maxLinksLevel0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final int segmentVectors;
+    private final FileChannel vectorChannel;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final List<FloatBuffer> segmentViews = new ArrayList<>();
+    private final boolean quantized;
+    /** 양자화 코드 한 건의 크기 (배율 float + 성분별 byte) */
+    private final int codeBytes;
+    private final FileChannel codeChannel;
+    private final List<MappedByteBuffer> codeSegments = new ArrayList<>();
+    private final SplittableRandom random = new SplittableRandom();
+
+    /** 노드별 계층별 이웃 목록 (노드 번호 = 벡터 파일 내 순번) */
+    private final List<int[][]> links = new ArrayList<>();
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    private HnswIndex(Path directory, int dimension, int m, int efConstruction, boolean quantized) throws IOException {
+        this.directory = directory;
+        this.dimension = dimension;
+        this.maxLinks = m;
+        this.maxLinksLevel0 = m * 2;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1 / Math.log(m);
+        this.segmentVectors = Math.min(SEGMENT_VECTORS, Integer.MAX_VALUE / (dimension * Float.BYTES));
+        this.vectorChannel = FileChannel.open(directory.resolve(VECTORS_FILE),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.quantized = quantized;
+        this.codeBytes = Float.BYTES + dimension;
+        this.codeChannel = quantized
+            ? FileChannel.open(directory.resolve(CODES_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)
+            : null;
+    }
+
+    /**
+     * 새 인덱스 생성 (빈 그래프를 바로 기록하여 차원을 보존)
+     */
+    public static HnswIndex create(Path directory, int dimension, int m, int efConstruction,
+                                   boolean quantized) throws IOException {
+        Files.createDirectories(directory);
+        HnswIndex index = new HnswIndex(directory, dimension, m, efConstruction, quantized);
+        index.save();
+        return index;
+    }
+
+    public static boolean exists(Path directory) {
+        return Files.isRegularFile(directory.resolve(GRAPH_FILE));
+    }
+
+    /**
+     * 기록된 그래프와 벡터 파일 열기 (양자화 코드가 없거나 오래되었으면 벡터에서 다시 계산)
+     */
+    public static HnswIndex load(Path directory, int m, int efConstruction, boolean quantized) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+            Files.newInputStream(directory.resolve(GRAPH_FILE))))) {
+            int version = in.readInt();
+            if (version < 1 || version > GRAPH_VERSION) {
+                throw new IOException("Unsupported HNSW graph version: " + version);
+            }
+            int dimension = in.readInt();
+            boolean codesSaved = version >= 2 && in.readBoolean();
+            HnswIndex index = new HnswIndex(directory, dimension, m, efConstruction, quantized);
+            int size = in.readInt();
+            index.entryPoint = in.readInt();
+            index.maxLevel = in.readInt();
+            for (int node = 0; node < size; node++) {
+                int[][] nodeLinks = new int[in.readInt()][];
+                for (int level = 0; level < nodeLinks.length; level++) {
+                    int[] neighbors = new int[in.readInt()];
+                    for (int i = 0; i < neighbors.length; i++) {
+                        neighbors[i] = in.readInt();
+                    }
+                    nodeLinks[level] = neighbors;
+                }
+                index.links.add(nodeLinks);
+            }
+            if (size > 0) {
+                index.segment(size - 1);
+            }
+            if (quantized && size > 0) {
+                index.codeSegment(size - 1);
+                if (!codesSaved) {
+                    for (int node = 0; node < size; node++) {
+                        index.writeCode(node, index.vector(node));
+                    }
+                }
+            }
+            return index;
+        }
+    }
+
+    public int size() {
+        return links.size();
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    public boolean isQuantized() {
+        return quantized;
+    }
+
+    /**
+     * 검색 중 벡터 하나당 읽는 바이트 수 (양자화 모드는 코드, 아니면 float 벡터)
+     */
+    public int bytesPerVector() {
+        return quantized ? codeBytes : dimension * Float.BYTES;
+    }
+
+    /**
+     * 벡터를 다음 순번에 기록하고 그래프에 연결
+     * @return 노드 번호
+     */
+    public int add(float[] vector) throws IOException {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException(
+                "Vector dimension " + vector.length + " does not match index dimension " + dimension);
+        }
+        int node = links.size();
+        float[] normalized = normalize(vector);
+        FloatBuffer segment = segment(node);
+        int base = (node % segmentVectors) * dimension;
+        for (int i = 0; i < dimension; i++) {
+            segment.put(base + i, normalized[i]);
+        }
+        if (quantized) {
+            writeCode(node, normalized);
+        }
+        insert(node, normalized);
+        return node;
+    }
+
+    /**
+     * 기록된 (정규화된) 벡터 읽기
+     */
+    public float[] vector(int node) throws IOException {
+        FloatBuffer segment = segment(node);
+        int base = (node % segmentVectors) * dimension;
+        float[] vector = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = segment.get(base + i);
+        }
+        return vector;
+    }
+
+    /**
+     * 질의 벡터와 가까운 노드 검색 (accept를 통과한 노드만 결과에 포함, 나머지는 경로로만 사용)
+     * 양자화 모드에서는 코드 거리로 max(ef, k * rescoreMultiplier)개 후보를 찾은 뒤 float 벡터로 다시 정렬한다.
+     * @return 거리 오름차순 최대 k개 (거리는 항상 float 벡터 기준)
+     */
+    public List<Neighbor> search(float[] query, int k, int ef, int rescoreMultiplier, IntPredicate accept) {
+        if (entryPoint < 0 || k <= 0) {
+            return List.of();
+        }
+        float[] normalized = normalize(query);
+        IntToDoubleFunction distance;
+        int candidates = Math.max(ef, k);
+        if (quantized) {
+            byte[] queryCodes = new byte[dimension];
+            float queryFactor = quantize(normalized, queryCodes);
+            byte[] scratch = new byte[dimension];
+            distance = node -> quantizedDistance(queryCodes, queryFactor, node, scratch);
+            candidates = Math.max(candidates, k * Math.max(1, rescoreMultiplier));
+        } else {
+            distance = node -> distance(normalized, node);
+        }
+
+        List<Neighbor> entryPoints = List.of(new Neighbor(entryPoint, distance.applyAsDouble(entryPoint)));
+        for (int level = maxLevel; level > 0; level--) {
+            entryPoints = searchLayer(distance, entryPoints, 1, level, null);
+        }
+        List<Neighbor> nearest = searchLayer(distance, entryPoints, candidates, 0, accept);
+
+        if (quantized) {
+            List<Neighbor> rescored = new ArrayList<>(nearest.size());
+            for (Neighbor neighbor : nearest) {
+                rescored.add(new Neighbor(neighbor.node(), distance(normalized, neighbor.node())));
+            }
+            rescored.sort(NEAREST_FIRST);
+            nearest = rescored;
+        }
+        return nearest.size() > k ? nearest.subList(0, k) : nearest;
+    }
+
+    /**
+     * 전체 노드를 float 벡터로 비교하는 정확한 검색 (근사 검색 재현율 측정 기준)
+     */
+    public List<Neighbor> exactSearch(float[] query, int k, IntPredicate accept) {
+        float[] normalized = normalize(query);
+        PriorityQueue<Neighbor> results = new PriorityQueue<>(FARTHEST_FIRST);
+        for (int node = 0; node < links.size(); node++) {
+            if (accept != null && !accept.test(node)) {
+                continue;
+            }
+            double distance = distance(normalized, node);
+            if (results.size() < k || distance < results.peek().distance()) {
+                results.add(new Neighbor(node, distance));
+                if (results.size() > k) {
+                    results.poll();
+                }
+            }
+        }
+        List<Neighbor> nearest = new ArrayList<>(results);
+        nearest.sort(NEAREST_FIRST);
+        return nearest;
+    }
+
+    /**
+     * 벡터 파일을 디스크에 반영
+     */
+    public void flush() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+        for (MappedByteBuffer segment : codeSegments) {
+            segment.force();
+        }
+    }
+
+    /**
+     * 벡터 파일 반영 후 그래프를 임시 파일에 기록하고 교체
+     */
+    public void save() throws IOException {
+        flush();
+        Path target = directory.resolve(GRAPH_FILE);
+        Path temp = directory.resolve(GRAPH_FILE + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(GRAPH_VERSION);
+            out.writeInt(dimension);
+            out.writeBoolean(quantized);
+            out.writeInt(links.size());
+            out.writeInt(entryPoint);
+            out.writeInt(maxLevel);
+            for (int[][] nodeLinks : links) {
+                out.writeInt(nodeLinks.length);
+                for (int[] neighbors : nodeLinks) {
+                    out.writeInt(neighbors.length);
+                    for (int neighbor : neighbors) {
+                        out.writeInt(neighbor);
+                    }
+                }
+            }
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        vectorChannel.close();
+        if (codeChannel != null) {
+            codeChannel.close();
+        }
+    }
+
+    /**
+     * 임의 계층을 정해 상위 계층부터 내려오며 각 계층의 가까운 노드들과 양방향으로 연결
+     */
+    private void insert(int node, float[] vector) {
+        int level = (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+        int[][] nodeLinks = new int[level + 1][];
+        for (int i = 0; i <= level; i++) {
+            nodeLinks[i] = NO_LINKS;
+        }
+        links.add(nodeLinks);
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+
+        // 그래프 구축은 양자화 여부와 관계없이 float 벡터 거리 사용
+        IntToDoubleFunction distance = other -> distance(vector, other);
+        List<Neighbor> entryPoints = List.of(new Neighbor(entryPoint, distance.applyAsDouble(entryPoint)));
+        for (int current = maxLevel; current > level; current--) {
+            entryPoints = searchLayer(distance, entryPoints, 1, current, null);
+        }
+        for (int current = Math.min(level, maxLevel); current >= 0; current--) {
+            List<Neighbor> candidates = searchLayer(distance, entryPoints, efConstruction, current, null);
+            nodeLinks[current] = selectNeighbors(candidates, maxLinks);
+            int limit = current == 0 ? maxLinksLevel0 : maxLinks;
+            for (int neighbor : nodeLinks[current]) {
+                connect(neighbor, node, current, limit);
+            }
+            entryPoints = candidates;
+        }
+
+        if (level > maxLevel) {
+            entryPoint = node;
+            maxLevel = level;
+        }
+    }
+
+    /**
+     * 한 계층에서 가까운 노드 ef개 탐색
+     */
+    private List<Neighbor> searchLayer(IntToDoubleFunction distanceTo, List<Neighbor> entryPoints, int ef,
+                                       int level, IntPredicate accept) {
+        BitSet visited = new BitSet(links.size());
+        PriorityQueue<Neighbor> candidates = new PriorityQueue<>(NEAREST_FIRST);
+        PriorityQueue<Neighbor> results = new PriorityQueue<>(FARTHEST_FIRST);
+        for (Neighbor entry : entryPoints) {
+            visited.set(entry.node());
+            candidates.add(entry);
+            if (accept == null || accept.test(entry.node())) {
+                results.add(entry);
+            }
+        }
+
+        while (!candidates.isEmpty()) {
+            Neighbor current = candidates.poll();
+            if (results.size() >= ef && current.distance() > results.peek().distance()) {
+                break;
+            }
+            for (int neighbor : links.get(current.node())[level]) {
+                if (visited.get(neighbor)) {
+                    continue;
+                }
+                visited.set(neighbor);
+                double distance = distanceTo.applyAsDouble(neighbor);
+                if (results.size() < ef || distance < results.peek().distance()) {
+                    Neighbor candidate = new Neighbor(neighbor, distance);
+                    candidates.add(candidate);
+                    if (accept == null || accept.test(neighbor)) {
+                        results.add(candidate);
+                        if (results.size() > ef) {
+                            results.poll();
+                        }
+                    }
+                }
+            }
+        }
+
+        List<Neighbor> nearest = new ArrayList<>(results);
+        nearest.sort(NEAREST_FIRST);
+        return nearest;
+    }
+
+    /**
+     * 이웃 선택 휴리스틱: 이미 선택한 이웃보다 질의 노드에 더 가까운 후보만 선택하여 여러 방향으로 연결
+     */
+    private int[] selectNeighbors(List<Neighbor> candidates, int limit) {
+        List<Neighbor> selected = new ArrayList<>(limit);
+        for (Neighbor candidate : candidates) {
+            if (selected.size() >= limit) {
+                break;
+            }
+            boolean diverse = true;
+            for (Neighbor chosen : selected) {
+                if (distance(candidate.node(), chosen.node()) < candidate.distance()) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected.add(candidate);
+            }
+        }
+        return selected.stream().mapToInt(Neighbor::node).toArray();
+    }
+
+    /**
+     * from의 이웃 목록에 to 추가 (최대 개수를 넘으면 휴리스틱으로 다시 선택)
+     */
+    private void connect(int from, int to, int level, int limit) {
+        int[] current = links.get(from)[level];
+        int[] extended = new int[current.length + 1];
+        System.arraycopy(current, 0, extended, 0, current.length);
+        extended[current.length] = to;
+        if (extended.length <= limit) {
+            links.get(from)[level] = extended;
+            return;
+        }
+
+        List<Neighbor> candidates = new ArrayList<>(extended.length);
+        for (int neighbor : extended) {
+            candidates.add(new Neighbor(neighbor, distance(from, neighbor)));
+        }
+        candidates.sort(NEAREST_FIRST);
+        links.get(from)[level] = selectNeighbors(candidates, limit);
+    }
+
+    private double distance(float[] query, int node) {
+        FloatBuffer segment = segmentView(node);
+        int base = (node % segmentVectors) * dimension;
+        double dot = 0;
+        for (int i = 0; i < dimension; i++) {
+            dot += query[i] * segment.get(base + i);
+        }
+        return 1 - dot;
+    }
+
+    private double distance(int a, int b) {
+        FloatBuffer segmentA = segmentView(a);
+        FloatBuffer segmentB = segmentView(b);
+        int baseA = (a % segmentVectors) * dimension;
+        int baseB = (b % segmentVectors) * dimension;
+        double dot = 0;
+        for (int i = 0; i < dimension; i++) {
+            dot += segmentA.get(baseA + i) * segmentB.get(baseB + i);
+        }
+        return 1 - dot;
+    }
+
+    /**
+     * 양자화 코드 거리: 1 - (질의 배율 * 노드 배율 * 코드 정수 내적)
+     * 코드를 배열로 복사한 뒤 단순 배열 루프로 내적을 계산하여 JIT 자동 벡터화(SIMD)가 적용되도록 한다.
+     */
+    private double quantizedDistance(byte[] queryCodes, float queryFactor, int node, byte[] scratch) {
+        MappedByteBuffer segment = codeSegments.get(node / segmentVectors);
+        int offset = (node % segmentVectors) * codeBytes;
+        float factor = segment.getFloat(offset);
+        segment.get(offset + Float.BYTES, scratch);
+        int dot = 0;
+        for (int i = 0; i < dimension; i++) {
+            dot += queryCodes[i] * scratch[i];
+        }
+        return 1 - (double) queryFactor * factor * dot;
+    }
+
+    private void writeCode(int node, float[] normalized) throws IOException {
+        byte[] codes = new byte[dimension];
+        float factor = quantize(normalized, codes);
+        MappedByteBuffer segment = codeSegment(node);
+        int offset = (node % segmentVectors) * codeBytes;
+        segment.putFloat(offset, factor);
+        segment.put(offset + Float.BYTES, codes);
+    }
+
+    /**
+     * 대칭 스칼라 양자화: 성분 최대 절댓값을 127로 맞춘 정수 코드
+     * @return 코드 1당 실제 값 (배율)
+     */
+    private static float quantize(float[] vector, byte[] codes) {
+        float maxAbs = 0;
+        for (float value : vector) {
+            maxAbs = Math.max(maxAbs, Math.abs(value));
+        }
+        if (maxAbs == 0) {
+            return 0;
+        }
+        float factor = maxAbs / 127;
+        for (int i = 0; i < vector.length; i++) {
+            codes[i] = (byte) Math.round(vector[i] / factor);
+        }
+        return factor;
+    }
+
+    /**
+     * 노드가 속한 양자화 코드 세그먼트 (필요하면 파일을 늘려 새로 매핑)
+     */
+    private MappedByteBuffer codeSegment(int node) throws IOException {
+        int index = node / segmentVectors;
+        long segmentBytes = (long) segmentVectors * codeBytes;
+        while (codeSegments.size() <= index) {
+            codeSegments.add(codeChannel.map(FileChannel.MapMode.READ_WRITE,
+                codeSegments.size() * segmentBytes, segmentBytes));
+        }
+        return codeSegments.get(index);
+    }
+
+    /**
+     * 이미 매핑된 세그먼트 (그래프에 있는 노드만 조회하므로 항상 존재)
+     */
+    private FloatBuffer segmentView(int node) {
+        return segmentViews.get(node / segmentVectors);
+    }
+
+    /**
+     * 노드가 속한 세그먼트 (필요하면 파일을 늘려 새로 매핑)
+     */
+    private FloatBuffer segment(int node) throws IOException {
+        int index = node / segmentVectors;
+        long segmentBytes = (long) segmentVectors * dimension * Float.BYTES;
+        while (segments.size() <= index) {
+            MappedByteBuffer mapped = vectorChannel.map(FileChannel.MapMode.READ_WRITE,
+                segments.size() * segmentBytes, segmentBytes);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            segments.add(mapped);
+            segmentViews.add(mapped.asFloatBuffer());
+        }
+        return segmentViews.get(index);
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        float[] normalized = vector.clone();
+        if (norm > 0) {
+            float scale = (float) (1 / Math.sqrt(norm));
+            for (int i = 0; i < normalized.length; i++) {
+                normalized[i] *= scale;
+            }
+        }
+        return normalized;
+    }
+
+    /**
+     * 검색된 노드와 질의까지의 거리
+     */
+    public record Neighbor(int node, double distance) {
+    }
+}
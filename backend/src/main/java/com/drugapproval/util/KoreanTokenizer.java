@@ -0,0 +1,64 @@
+package com.drugapproval.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 키워드 검색용 토크나이저
+ * 한글/한자 연속 구간은 2글자 단위(bigram)로 겹쳐 나누어 조사·어미가 붙은 형태도 어간 bigram이 일치하도록 하고,
+ * 영문/숫자 연속 구간은 소문자 단어 하나로 만든다. 그 밖의 문자는 구분자로 취급한다.
+ */
+public final class KoreanTokenizer {
+
+    private KoreanTokenizer() {
+    }
+
+    /**
+     * 토큰 목록 (원문 내 시작/끝 위치 포함, 등장 순서)
+     */
+    public static List<Token> tokenize(String text) {
+        List<Token> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (isCjk(c)) {
+                int start = i;
+                while (i < length && isCjk(text.charAt(i))) {
+                    i++;
+                }
+                if (i - start == 1) {
+                    tokens.add(new Token(text.substring(start, i), start, i));
+                } else {
+                    for (int j = start; j + 2 <= i; j++) {
+                        tokens.add(new Token(text.substring(j, j + 2), j, j + 2));
+                    }
+                }
+            } else if (Character.isLetterOrDigit(c)) {
+                int start = i;
+                while (i < length && Character.isLetterOrDigit(text.charAt(i)) && !isCjk(text.charAt(i))) {
+                    i++;
+                }
+                tokens.add(new Token(text.substring(start, i).toLowerCase(Locale.ROOT), start, i));
+            } else {
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean isCjk(char c) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(c);
+        return script == Character.UnicodeScript.HANGUL || script == Character.UnicodeScript.HAN;
+    }
+
+    /**
+     * 토큰과 원문 위치
+     */
+    public record Token(String term, int start, int end) {
+    }
+}
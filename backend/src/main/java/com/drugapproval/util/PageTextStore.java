@@ -0,0 +1,215 @@
+package com.drugapproval.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 문서별 페이지 텍스트 저장소
+ * 수집 시 추출한 페이지 텍스트를 문서당 파일 하나(UTF-8 본문 + 페이지 오프셋 표)로 기록하고,
+ * 읽을 때는 파일을 메모리 매핑하여 PDF를 다시 열지 않고 페이지 하나만 꺼낸다.
+ * 파일 형식: [페이지 텍스트 UTF-8 연속][int 오프셋 × (페이지 수 + 1)][int 페이지 수][int 버전][int MAGIC]
+ */
+@Slf4j
+@Component
+public class PageTextStore {
+
+    private static final int MAGIC = 0x50475458;
+    private static final int VERSION = 1;
+    private static final int FOOTER_BYTES = Integer.BYTES * 3;
+    private static final String FILE_SUFFIX = ".pagetext";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    @Value("${app.page-text.directory:${app.upload.directory}/.pages}")
+    private String directory;
+
+    @Value("${app.page-text.max-open-files:64}")
+    private int maxOpenFiles;
+
+    /** 매핑된 파일 (접근 순서 LRU, this로 동기화) */
+    private final LinkedHashMap<Long, Mapped> mapped = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Mapped> eldest) {
+            return size() > maxOpenFiles;
+        }
+    };
+
+    /**
+     * 새 페이지 텍스트 기록 시작 (commit 전까지 기존 파일은 그대로 읽을 수 있음)
+     */
+    public Writer openWriter(Long documentId) throws IOException {
+        Path dir = Paths.get(directory);
+        Files.createDirectories(dir);
+        return new Writer(documentId, Files.createTempFile(dir, documentId + ".", TEMP_SUFFIX));
+    }
+
+    public boolean exists(Long documentId) {
+        return Files.isRegularFile(path(documentId));
+    }
+
+    /**
+     * 페이지 텍스트 조회
+     * @return 페이지 텍스트 (파일이 없거나 페이지 번호가 범위를 벗어나면 null)
+     */
+    public PageText readPage(Long documentId, int pageNumber) throws IOException {
+        Mapped file = open(documentId);
+        if (file == null || pageNumber < 1 || pageNumber > file.pageCount) {
+            return null;
+        }
+        ByteBuffer buffer = file.buffer.duplicate();
+        int tableIndex = file.tableOffset + (pageNumber - 1) * Integer.BYTES;
+        int start = buffer.getInt(tableIndex);
+        int end = buffer.getInt(tableIndex + Integer.BYTES);
+
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new PageText(pageNumber, file.pageCount, new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 문서의 페이지 텍스트 파일 삭제
+     */
+    public void delete(Long documentId) {
+        evict(documentId);
+        try {
+            Files.deleteIfExists(path(documentId));
+        } catch (IOException e) {
+            log.warn("Failed to delete page text of document {}: {}", documentId, e.getMessage());
+        }
+    }
+
+    private Mapped open(Long documentId) throws IOException {
+        synchronized (this) {
+            Mapped file = mapped.get(documentId);
+            if (file != null) {
+                return file;
+            }
+        }
+
+        Path path = path(documentId);
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        Mapped file;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < FOOTER_BYTES + Integer.BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Invalid page text file: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int footer = (int) size - FOOTER_BYTES;
+            int pageCount = buffer.getInt(footer);
+            if (buffer.getInt(footer + Integer.BYTES * 2) != MAGIC
+                || buffer.getInt(footer + Integer.BYTES) != VERSION
+                || pageCount < 0 || (long) (pageCount + 1) * Integer.BYTES > footer) {
+                throw new IOException("Invalid page text file: " + path);
+            }
+            file = new Mapped(buffer, pageCount, footer - (pageCount + 1) * Integer.BYTES);
+        }
+
+        synchronized (this) {
+            mapped.put(documentId, file);
+        }
+        return file;
+    }
+
+    private synchronized void evict(Long documentId) {
+        mapped.remove(documentId);
+    }
+
+    private Path path(Long documentId) {
+        return Paths.get(directory, documentId + FILE_SUFFIX);
+    }
+
+    private record Mapped(MappedByteBuffer buffer, int pageCount, int tableOffset) {}
+
+    /**
+     * 페이지 텍스트 (페이지 번호, 문서 총 페이지 수, 본문)
+     */
+    public record PageText(int pageNumber, int pageCount, String text) {}
+
+    /**
+     * 페이지 텍스트 기록기 (페이지 순서대로 기록, 빠진 페이지는 빈 텍스트로 채움)
+     */
+    public class Writer implements AutoCloseable {
+
+        private final Long documentId;
+        private final Path tempFile;
+        private final DataOutputStream out;
+        private int[] offsets = new int[64];
+        private int pageCount;
+        private boolean committed;
+
+        private Writer(Long documentId, Path tempFile) throws IOException {
+            this.documentId = documentId;
+            this.tempFile = tempFile;
+            OutputStream stream = Files.newOutputStream(tempFile);
+            this.out = new DataOutputStream(new BufferedOutputStream(stream, 64 * 1024));
+        }
+
+        public void writePage(PdfProcessor.PageContent page) throws IOException {
+            if (page.pageNumber() <= pageCount) {
+                throw new IllegalStateException("Page " + page.pageNumber() + " written out of order");
+            }
+            while (pageCount + 1 < page.pageNumber()) {
+                addOffset();
+            }
+            out.write(page.text().getBytes(StandardCharsets.UTF_8));
+            addOffset();
+        }
+
+        /**
+         * 오프셋 표를 붙여 파일 완료 (기존 파일 교체)
+         */
+        public void commit() throws IOException {
+            out.writeInt(0);
+            for (int i = 0; i < pageCount; i++) {
+                out.writeInt(offsets[i]);
+            }
+            out.writeInt(pageCount);
+            out.writeInt(VERSION);
+            out.writeInt(MAGIC);
+            out.close();
+
+            Files.move(tempFile, path(documentId), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+            evict(documentId);
+        }
+
+        private void addOffset() throws IOException {
+            if (out.size() == Integer.MAX_VALUE) {
+                throw new IOException("Page text of document " + documentId + " exceeds 2GB");
+            }
+            if (pageCount == offsets.length) {
+                offsets = Arrays.copyOf(offsets, pageCount * 2);
+            }
+            offsets[pageCount++] = out.size();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+            if (!committed) {
+                Files.deleteIfExists(tempFile);
+            }
+        }
+    }
+}
@@ -1,27 +1,59 @@
 package com.drugapproval.util;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
 
 /**
  * PDF 파일 처리 유틸리티
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class PdfProcessor {
 
+    @Qualifier("pdfExtractionPool")
+    private final ForkJoinPool pdfExtractionPool;
+
+    private final TextChunker textChunker;
+
+    @Value("${app.pdf.parallelism:4}")
+    private int parallelism;
+
+    @Value("${app.pdf.parallel-threshold-pages:100}")
+    private int parallelThresholdPages;
+
+    @Value("${app.pdf.pages-per-slice:25}")
+    private int pagesPerSlice;
+
     /**
      * PDF 파일의 총 페이지 수를 반환
      */
     public int getPageCount(File pdfFile) throws IOException {
-        try (PDDocument document = PDDocument.load(pdfFile)) {
+        try (PDDocument document = Loader.loadPDF(pdfFile)) {
             return document.getNumberOfPages();
         }
     }
@@ -30,17 +62,17 @@ public class PdfProcessor {
      * PDF 파일의 전체 텍스트를 추출
      */
     public String extractAllText(File pdfFile) throws IOException {
-        try (PDDocument document = PDDocument.load(pdfFile)) {
+        try (PDDocument document = Loader.loadPDF(pdfFile)) {
             PDFTextStripper stripper = new PDFTextStripper();
             return stripper.getText(document);
         }
     }
 
     /**
-     * PDF 파일의 특정 페이지 텍스트를 추출
+     * PDF 파일의 특정 페이지 텍스트를 추출 (문서 전체를 다시 파싱하므로 수집된 문서는 PageTextStore 사용)
      */
     public String extractPageText(File pdfFile, int pageNumber) throws IOException {
-        try (PDDocument document = PDDocument.load(pdfFile)) {
+        try (PDDocument document = Loader.loadPDF(pdfFile)) {
             PDFTextStripper stripper = new PDFTextStripper();
             stripper.setStartPage(pageNumber);
             stripper.setEndPage(pageNumber);
@@ -52,58 +84,308 @@ public class PdfProcessor {
      * PDF 파일을 페이지별로 분할하여 텍스트 추출
      */
     public List<PageContent> extractPageByPage(File pdfFile) throws IOException {
-        List<PageContent> pages = new ArrayList<>();
+        try (PDDocument document = Loader.loadPDF(pdfFile)) {
+            return stripPages(pdfFile, document).pages();
+        }
+    }
 
-        try (PDDocument document = PDDocument.load(pdfFile)) {
-            PDFTextStripper stripper = new PDFTextStripper();
-            int totalPages = document.getNumberOfPages();
+    /**
+     * PDF 파일을 청크 단위로 분할하여 텍스트 추출
+     */
+    public List<TextChunk> extractChunks(File pdfFile) throws IOException {
+        return textChunker.split(extractPageByPage(pdfFile));
+    }
+
+    /**
+     * 단일 패스 추출: 문서를 한 번만 열고 한 번의 텍스트 스트리핑으로
+     * 페이지 수, 페이지별 텍스트, 청크, 전체 텍스트를 함께 생성
+     */
+    public ExtractionResult extract(File pdfFile) throws IOException {
+        long startTime = System.currentTimeMillis();
 
-            for (int i = 1; i <= totalPages; i++) {
-                stripper.setStartPage(i);
-                stripper.setEndPage(i);
-                String text = stripper.getText(document);
+        try (PDDocument document = Loader.loadPDF(pdfFile)) {
+            StrippedText stripped = stripPages(pdfFile, document);
+            List<TextChunk> chunks = textChunker.split(stripped.pages());
 
-                pages.add(new PageContent(i, text));
+            log.debug("Extracted {} pages / {} chunks from {} in {}ms",
+                stripped.pages().size(), chunks.size(), pdfFile.getName(),
+                System.currentTimeMillis() - startTime);
+
+            return new ExtractionResult(
+                document.getNumberOfPages(),
+                stripped.pages(),
+                chunks,
+                stripped.fullText()
+            );
+        }
+    }
+
+    /**
+     * 스트리밍 추출: 페이지 텍스트를 모아두지 않고 페이지가 끝날 때마다 핸들러로 전달
+     * 핸들러가 대기하면 추출도 함께 멈추므로 메모리에는 현재 페이지(병렬 추출 시 진행 중인 슬라이스)만 유지된다.
+     * (내용 스트림이 없는 페이지도 빈 텍스트로 순서대로 전달)
+     * @return 총 페이지 수
+     */
+    public int streamPages(File pdfFile, PageHandler handler) throws IOException {
+        return streamPages(pdfFile, pageCount -> {}, handler);
+    }
+
+    /**
+     * 스트리밍 추출 (추출 시작 전에 총 페이지 수를 먼저 통지)
+     * 페이지 수가 임계값 이상이면 슬라이스를 추출 풀에서 병렬로 추출하고 페이지 순서대로 전달한다.
+     * @return 총 페이지 수
+     */
+    public int streamPages(File pdfFile, IntConsumer pageCountListener, PageHandler handler) throws IOException {
+        int totalPages;
+        try (PDDocument document = Loader.loadPDF(pdfFile)) {
+            totalPages = document.getNumberOfPages();
+            pageCountListener.accept(totalPages);
+            if (parallelism <= 1 || totalPages < parallelThresholdPages) {
+                streamPageRange(document, totalPages, handler);
+                return totalPages;
             }
         }
+        streamSlicesInOrder(pdfFile, totalPages, handler);
+        return totalPages;
+    }
 
-        return pages;
+    /**
+     * 순차 스트리밍 (빠진 페이지는 빈 텍스트로 채워 순서대로 전달)
+     */
+    private static void streamPageRange(PDDocument document, int totalPages, PageHandler handler)
+        throws IOException {
+        int[] lastPage = {0};
+
+        PageHandler gapFilling = page -> {
+            for (int i = lastPage[0] + 1; i < page.pageNumber(); i++) {
+                handler.onPage(new PageContent(i, ""));
+            }
+            handler.onPage(page);
+            lastPage[0] = page.pageNumber();
+        };
+
+        StringWriter writer = new StringWriter();
+        new PageBoundaryStripper(writer, gapFilling).writeText(document, writer);
+
+        for (int i = lastPage[0] + 1; i <= totalPages; i++) {
+            handler.onPage(new PageContent(i, ""));
+        }
     }
 
     /**
-     * PDF 파일을 청크 단위로 분할하여 텍스트 추출
-     * @param pdfFile PDF 파일
-     * @param chunkSize 청크 크기 (문자 수)
-     * @param overlap 청크 간 중복 크기
-     */
-    public List<TextChunk> extractChunks(File pdfFile, int chunkSize, int overlap) throws IOException {
-        List<TextChunk> chunks = new ArrayList<>();
-        List<PageContent> pages = extractPageByPage(pdfFile);
-
-        for (PageContent page : pages) {
-            String text = page.getText();
-            int start = 0;
-            int chunkIndex = 0;
-
-            while (start < text.length()) {
-                int end = Math.min(start + chunkSize, text.length());
-                String chunkText = text.substring(start, end);
-
-                chunks.add(new TextChunk(
-                    page.getPageNumber(),
-                    chunkIndex++,
-                    chunkText,
-                    start,
-                    end
-                ));
-
-                start += (chunkSize - overlap);
+     * 병렬 스트리밍: 슬라이스를 최대 parallelism개까지 앞서 추출하고, 앞 슬라이스부터 순서대로 핸들러에 전달
+     * (핸들러가 대기하면 새 슬라이스를 시작하지 않으므로 메모리에는 진행 중인 슬라이스만 유지된다)
+     */
+    private void streamSlicesInOrder(File pdfFile, int totalPages, PageHandler handler) throws IOException {
+        long startTime = System.currentTimeMillis();
+        int sliceSize = Math.max(1, pagesPerSlice);
+        Deque<ForkJoinTask<String[]>> inFlight = new ArrayDeque<>();
+        int nextPage = 1;
+        int emittedPage = 0;
+
+        try {
+            while (emittedPage < totalPages) {
+                while (inFlight.size() < parallelism && nextPage <= totalPages) {
+                    int fromPage = nextPage;
+                    int toPage = Math.min(totalPages, fromPage + sliceSize - 1);
+                    inFlight.add(pdfExtractionPool.submit(() -> stripSlice(pdfFile, fromPage, toPage)));
+                    nextPage = toPage + 1;
+                }
+
+                for (String text : awaitSlice(inFlight.poll())) {
+                    handler.onPage(new PageContent(++emittedPage, text));
+                }
+            }
+        } finally {
+            inFlight.forEach(task -> task.cancel(true));
+        }
+        log.debug("Streamed {} pages of {} in parallel in {}ms",
+            totalPages, pdfFile.getName(), System.currentTimeMillis() - startTime);
+    }
+
+    private static String[] awaitSlice(ForkJoinTask<String[]> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while extracting PDF pages");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
             }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException("PDF page extraction failed", cause);
         }
+    }
 
-        return chunks;
+    /**
+     * 페이지 구간 하나를 자체 PDDocument 핸들로 추출 (빠진 페이지는 빈 텍스트)
+     */
+    private static String[] stripSlice(File pdfFile, int fromPage, int toPage) throws IOException {
+        String[] texts = new String[toPage - fromPage + 1];
+        Arrays.fill(texts, "");
+        try (PDDocument document = Loader.loadPDF(pdfFile)) {
+            StringWriter writer = new StringWriter();
+            PageBoundaryStripper stripper = new PageBoundaryStripper(writer,
+                page -> texts[page.pageNumber() - fromPage] = page.text());
+            stripper.setStartPage(fromPage);
+            stripper.setEndPage(toPage);
+            stripper.writeText(document, writer);
+        }
+        return texts;
     }
 
+    /**
+     * 문서 단위 청크 분할 세션 시작 (스트리밍 추출 시 페이지마다 사용)
+     */
+    public TextChunker.Session openChunking() {
+        return textChunker.open();
+    }
+
+    /**
+     * 페이지별 텍스트 추출
+     * 페이지 수가 임계값 이상이면 페이지 구간을 나누어 병렬로, 그 외에는 순차로 추출
+     */
+    private StrippedText stripPages(File pdfFile, PDDocument document) throws IOException {
+        int totalPages = document.getNumberOfPages();
+        String[] pageTexts = new String[totalPages];
+        Arrays.fill(pageTexts, "");
+
+        if (parallelism > 1 && totalPages >= parallelThresholdPages) {
+            stripPagesInParallel(pdfFile, pageTexts);
+        } else if (totalPages > 0) {
+            stripPageRange(document, 1, totalPages, pageTexts);
+        }
+
+        List<PageContent> pages = new ArrayList<>(totalPages);
+        for (int i = 0; i < totalPages; i++) {
+            pages.add(new PageContent(i + 1, pageTexts[i]));
+        }
+
+        return new StrippedText(pages, String.join("", pageTexts));
+    }
+
+    /**
+     * 페이지 구간을 슬라이스로 나누어 추출 풀에서 병렬 처리
+     * 각 슬라이스는 자체 PDDocument 핸들과 스트리퍼를 사용하고, 결과는 페이지 번호 위치에 기록되어 순서가 유지됨
+     */
+    private void stripPagesInParallel(File pdfFile, String[] pageTexts) throws IOException {
+        long startTime = System.currentTimeMillis();
+        try {
+            pdfExtractionPool.invoke(new SliceExtractionTask(
+                pdfFile, 1, pageTexts.length, Math.max(1, pagesPerSlice), pageTexts));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        log.debug("Extracted {} pages of {} in parallel in {}ms",
+            pageTexts.length, pdfFile.getName(), System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * 스트리퍼를 페이지 구간에 한 번만 실행하고 페이지 경계를 기록하여 페이지별 텍스트로 분리
+     */
+    private static void stripPageRange(PDDocument document, int fromPage, int toPage, String[] pageTexts)
+        throws IOException {
+        StringWriter writer = new StringWriter();
+        PageBoundaryStripper stripper = new PageBoundaryStripper(writer,
+            page -> pageTexts[page.pageNumber() - 1] = page.text());
+        stripper.setStartPage(fromPage);
+        stripper.setEndPage(toPage);
+        stripper.writeText(document, writer);
+    }
+
+    /**
+     * 페이지 구간 추출 작업 (슬라이스 크기 이하가 될 때까지 절반으로 분할)
+     */
+    private static final class SliceExtractionTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final File pdfFile;
+        private final int fromPage;
+        private final int toPage;
+        private final int pagesPerSlice;
+        private final String[] pageTexts;
+
+        SliceExtractionTask(File pdfFile, int fromPage, int toPage, int pagesPerSlice, String[] pageTexts) {
+            this.pdfFile = pdfFile;
+            this.fromPage = fromPage;
+            this.toPage = toPage;
+            this.pagesPerSlice = pagesPerSlice;
+            this.pageTexts = pageTexts;
+        }
+
+        @Override
+        protected void compute() {
+            if (toPage - fromPage + 1 <= pagesPerSlice) {
+                try (PDDocument document = Loader.loadPDF(pdfFile)) {
+                    stripPageRange(document, fromPage, toPage, pageTexts);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return;
+            }
+
+            int middle = (fromPage + toPage) >>> 1;
+            invokeAll(
+                new SliceExtractionTask(pdfFile, fromPage, middle, pagesPerSlice, pageTexts),
+                new SliceExtractionTask(pdfFile, middle + 1, toPage, pagesPerSlice, pageTexts)
+            );
+        }
+    }
+
+    /**
+     * 페이지가 끝날 때마다 해당 페이지의 출력 텍스트를 핸들러로 넘기고 버퍼를 비우는 스트리퍼
+     * (내용 스트림이 없는 페이지는 호출되지 않음)
+     */
+    private static final class PageBoundaryStripper extends PDFTextStripper {
+
+        private final StringWriter writer;
+        private final PageHandler handler;
+
+        PageBoundaryStripper(StringWriter writer, PageHandler handler) {
+            this.writer = writer;
+            this.handler = handler;
+        }
+
+        @Override
+        protected void startPage(PDPage page) throws IOException {
+            super.startPage(page);
+            writer.getBuffer().setLength(0);
+        }
+
+        @Override
+        protected void endPage(PDPage page) throws IOException {
+            super.endPage(page);
+            String text = writer.toString();
+            writer.getBuffer().setLength(0);
+            handler.onPage(new PageContent(getCurrentPageNo(), text));
+        }
+    }
+
+    /**
+     * 페이지 단위 추출 결과 처리기
+     */
+    @FunctionalInterface
+    public interface PageHandler {
+        void onPage(PageContent page) throws IOException;
+    }
+
+    private record StrippedText(List<PageContent> pages, String fullText) {}
+
+    /**
+     * 단일 패스 추출 결과
+     */
+    public record ExtractionResult(
+        int pageCount,
+        List<PageContent> pages,
+        List<TextChunk> chunks,
+        String fullText
+    ) {}
+
     /**
      * 페이지 내용 클래스
      */
@@ -111,12 +393,19 @@ public class PdfProcessor {
 
     /**
      * 텍스트 청크 클래스
+     * text는 페이지 문자열의 뷰일 수 있으므로 전송 시점에 toString()으로 변환한다.
+     * 페이지 경계를 넘는 청크는 startOffset이 시작 페이지, endOffset이 endPageNumber 페이지 기준이다.
      */
     public record TextChunk(
         int pageNumber,
         int chunkIndex,
-        String text,
+        @JsonDeserialize(as = String.class) CharSequence text,
         int startOffset,
-        int endOffset
-    ) {}
+        int endOffset,
+        int endPageNumber
+    ) {
+        public TextChunk(int pageNumber, int chunkIndex, CharSequence text, int startOffset, int endOffset) {
+            this(pageNumber, chunkIndex, text, startOffset, endOffset, pageNumber);
+        }
+    }
 }
@@ -0,0 +1,339 @@
+package com.drugapproval.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 문장/문단 경계를 따르는 토큰 예산 기반 청크 분할기
+ * 페이지를 문장 단위로 나눈 뒤 토큰 예산(maxTokens)까지 문장을 채워 청크를 만들고,
+ * 다음 청크는 이전 청크의 마지막 문장들(overlapTokens 이내)부터 시작한다.
+ * 청크 텍스트는 페이지 문자열의 뷰(TextSpan)이며, 페이지 끝의 짧은 꼬리(minTokens 미만)는
+ * 다음 페이지의 첫 청크와 합쳐 페이지 경계를 넘는 문장이 잘리지 않도록 한다.
+ */
+public class SentenceChunker implements TextChunker {
+
+    /** 문장 종결 부호 */
+    private static final String TERMINATORS = ".?!…。？！";
+    /** 종결 부호 뒤에 올 수 있는 닫는 부호 */
+    private static final String CLOSERS = ")]}\"'”’」』》〉";
+    /** 마침표 없이 줄바꿈으로 끝나는 한국어 문장/개조식 어미 */
+    private static final String KOREAN_ENDINGS = "다요음함됨임";
+    /** 줄 첫머리의 목록 기호 (새 항목 시작) */
+    private static final String BULLETS = "○●◦•▪■□◆◇-·※▶►";
+
+    private final int maxTokens;
+    private final int overlapTokens;
+    private final int minTokens;
+
+    public SentenceChunker(int maxTokens, int overlapTokens, int minTokens) {
+        this.maxTokens = Math.max(1, maxTokens);
+        this.overlapTokens = Math.max(0, Math.min(overlapTokens, this.maxTokens / 2));
+        this.minTokens = Math.max(0, Math.min(minTokens, this.maxTokens));
+    }
+
+    @Override
+    public Session open() {
+        return new SentenceSession();
+    }
+
+    /**
+     * 문서 단위 분할 상태 (이전 페이지에서 넘어온 꼬리 구간)
+     */
+    private final class SentenceSession implements Session {
+
+        private CharSequence carryText;
+        private int carryTokens;
+        private int carryPage;
+        private int carryStart;
+        private int carryEndPage;
+        private int carryEnd;
+        private int carryIndex;
+
+        @Override
+        public List<PdfProcessor.TextChunk> addPage(PdfProcessor.PageContent page) {
+            String text = page.text();
+            Units units = segment(text);
+            List<PdfProcessor.TextChunk> chunks = new ArrayList<>();
+            if (units.size == 0) {
+                return chunks;
+            }
+
+            int pageNumber = page.pageNumber();
+            int chunkIndex = 0;
+            int i = 0;
+
+            // 이전 페이지 꼬리 + 이 페이지 앞부분
+            if (carryText != null) {
+                int j = 0;
+                int tokens = carryTokens;
+                while (j < units.size && tokens + units.tokens[j] <= maxTokens) {
+                    tokens += units.tokens[j];
+                    j++;
+                }
+
+                if (j > 0) {
+                    StringBuilder joined = new StringBuilder(carryText.length() + units.end[j - 1] - units.start[0] + 1)
+                        .append(carryText).append('\n').append(text, units.start[0], units.end[j - 1]);
+                    if (j == units.size && tokens < minTokens) {
+                        // 이 페이지도 짧으면 다음 페이지까지 계속 이어 붙임
+                        carryText = joined.toString();
+                        carryTokens = tokens;
+                        carryEndPage = pageNumber;
+                        carryEnd = units.end[j - 1];
+                        return chunks;
+                    }
+                    chunks.add(new PdfProcessor.TextChunk(carryPage, carryIndex, joined.toString(),
+                        carryStart, units.end[j - 1], pageNumber));
+                } else {
+                    chunks.add(carryChunk());
+                }
+                carryText = null;
+
+                if (j == units.size) {
+                    return chunks;
+                }
+                i = j;
+            }
+
+            // 페이지가 문장 중간에서 끝나면 마지막 문장은 다음 페이지와 합치도록 남김
+            int limit = endsSentence(text, units.end[units.size - 1]) ? units.size : units.size - 1;
+            if (i > 0 && i < limit) {
+                i = overlapStart(units, 0, i);
+            }
+
+            while (i < limit) {
+                int j = i;
+                int tokens = 0;
+                while (j < limit && (j == i || tokens + units.tokens[j] <= maxTokens)) {
+                    tokens += units.tokens[j];
+                    j++;
+                }
+
+                if (j == limit && tokens < minTokens) {
+                    // 짧은 페이지 꼬리는 다음 페이지와 합침
+                    break;
+                }
+
+                chunks.add(new PdfProcessor.TextChunk(pageNumber, chunkIndex++,
+                    new TextSpan(text, units.start[i], units.end[j - 1]), units.start[i], units.end[j - 1]));
+                if (j == limit) {
+                    i = limit;
+                    break;
+                }
+                i = overlapStart(units, i, j);
+            }
+
+            if (i < units.size) {
+                carryTokens = 0;
+                for (int k = i; k < units.size; k++) {
+                    carryTokens += units.tokens[k];
+                }
+
+                // 짧은 꼬리 + 미완성 마지막 문장이 토큰 예산을 넘으면 본문과 같은 방식으로 앞부분을 먼저 청크로 내보냄
+                while (carryTokens > maxTokens && i < units.size - 1) {
+                    int j = i;
+                    int tokens = 0;
+                    while (j == i || tokens + units.tokens[j] <= maxTokens) {
+                        tokens += units.tokens[j];
+                        j++;
+                    }
+                    chunks.add(new PdfProcessor.TextChunk(pageNumber, chunkIndex++,
+                        new TextSpan(text, units.start[i], units.end[j - 1]), units.start[i], units.end[j - 1]));
+                    int next = overlapStart(units, i, j);
+                    for (int k = i; k < next; k++) {
+                        carryTokens -= units.tokens[k];
+                    }
+                    i = next;
+                }
+
+                carryText = new TextSpan(text, units.start[i], units.end[units.size - 1]);
+                carryPage = pageNumber;
+                carryStart = units.start[i];
+                carryEndPage = pageNumber;
+                carryEnd = units.end[units.size - 1];
+                carryIndex = chunkIndex;
+            }
+
+            return chunks;
+        }
+
+        @Override
+        public List<PdfProcessor.TextChunk> finish() {
+            if (carryText == null) {
+                return List.of();
+            }
+            PdfProcessor.TextChunk chunk = carryChunk();
+            carryText = null;
+            return List.of(chunk);
+        }
+
+        private PdfProcessor.TextChunk carryChunk() {
+            return new PdfProcessor.TextChunk(carryPage, carryIndex, carryText, carryStart, carryEnd, carryEndPage);
+        }
+    }
+
+    /**
+     * 다음 청크의 시작 문장: 이전 청크 [from, to)의 마지막 문장들 중 overlapTokens 이내 (항상 from보다 뒤)
+     */
+    private int overlapStart(Units units, int from, int to) {
+        int k = to;
+        int tokens = 0;
+        while (k - 1 > from && tokens + units.tokens[k - 1] <= overlapTokens) {
+            tokens += units.tokens[k - 1];
+            k--;
+        }
+        return k;
+    }
+
+    /**
+     * 페이지 텍스트를 문장 단위 구간으로 분할 (문자열 복사 없이 오프셋만 기록)
+     */
+    private Units segment(String text) {
+        Units units = new Units();
+        int length = text.length();
+        int unitStart = 0;
+
+        for (int p = 0; p < length; p++) {
+            char c = text.charAt(p);
+            int cut = -1;
+
+            if (TERMINATORS.indexOf(c) >= 0) {
+                int q = p + 1;
+                while (q < length && CLOSERS.indexOf(text.charAt(q)) >= 0) {
+                    q++;
+                }
+                // 소수점(3.5), 약어(e.g. xxx)처럼 뒤에 공백이 없거나 소문자로 이어지는 마침표는 경계로 보지 않음
+                if (q >= length || (Character.isWhitespace(text.charAt(q))
+                    && !(c == '.' && continuesLowercase(text, q)))) {
+                    cut = q;
+                }
+            } else if (c == '\n' && p > unitStart) {
+                int next = skipInlineWhitespace(text, p + 1);
+                char previous = lastNonWhitespace(text, unitStart, p);
+                if (next < length && text.charAt(next) == '\n') {
+                    cut = p;    // 빈 줄 (문단 경계)
+                } else if (KOREAN_ENDINGS.indexOf(previous) >= 0) {
+                    cut = p;    // "~다", "~함" 등으로 끝나는 줄
+                } else if (next < length && BULLETS.indexOf(text.charAt(next)) >= 0) {
+                    cut = p;    // 다음 줄이 목록 항목
+                }
+            }
+
+            if (cut > unitStart) {
+                addUnit(units, text, unitStart, cut);
+                unitStart = cut;
+                p = cut - 1;
+            }
+        }
+        addUnit(units, text, unitStart, length);
+        return units;
+    }
+
+    /**
+     * 앞뒤 공백을 제외한 구간 추가 (토큰 예산을 넘는 문장은 줄/단어 경계에서 다시 분할)
+     */
+    private void addUnit(Units units, String text, int from, int to) {
+        while (from < to && Character.isWhitespace(text.charAt(from))) {
+            from++;
+        }
+        while (to > from && Character.isWhitespace(text.charAt(to - 1))) {
+            to--;
+        }
+        if (from >= to) {
+            return;
+        }
+
+        int tokens = TokenEstimator.estimate(text, from, to);
+        if (tokens <= maxTokens) {
+            units.add(from, to, tokens);
+            return;
+        }
+
+        int budget = maxTokens * TokenEstimator.UNITS_PER_TOKEN;
+        int start = from;
+        int weight = 0;
+        int lastLineBreak = -1;
+        int lastSpace = -1;
+        for (int p = from; p < to; p++) {
+            char c = text.charAt(p);
+            weight += TokenEstimator.weight(c);
+            if (weight > budget && p > start) {
+                int cut = lastLineBreak > start ? lastLineBreak : lastSpace > start ? lastSpace : p;
+                addUnit(units, text, start, cut);
+                start = cut;
+                weight = 0;
+                lastLineBreak = -1;
+                lastSpace = -1;
+                p = cut - 1;
+                continue;
+            }
+            if (c == '\n') {
+                lastLineBreak = p;
+            } else if (Character.isWhitespace(c)) {
+                lastSpace = p;
+            }
+        }
+        if (start < to) {
+            addUnit(units, text, start, to);
+        }
+    }
+
+    /**
+     * 구간 끝이 문장 종결(종결 부호 또는 한국어 종결 어미)인지 여부
+     */
+    private static boolean endsSentence(String text, int end) {
+        int p = end - 1;
+        while (p > 0 && CLOSERS.indexOf(text.charAt(p)) >= 0) {
+            p--;
+        }
+        char last = text.charAt(p);
+        return TERMINATORS.indexOf(last) >= 0 || KOREAN_ENDINGS.indexOf(last) >= 0;
+    }
+
+    private static boolean continuesLowercase(String text, int from) {
+        while (from < text.length() && Character.isWhitespace(text.charAt(from))) {
+            from++;
+        }
+        return from < text.length() && text.charAt(from) >= 'a' && text.charAt(from) <= 'z';
+    }
+
+    private static int skipInlineWhitespace(String text, int from) {
+        while (from < text.length() && text.charAt(from) != '\n' && Character.isWhitespace(text.charAt(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    private static char lastNonWhitespace(String text, int from, int to) {
+        for (int p = to - 1; p >= from; p--) {
+            if (!Character.isWhitespace(text.charAt(p))) {
+                return text.charAt(p);
+            }
+        }
+        return ' ';
+    }
+
+    /**
+     * 문장 구간 목록 (시작/끝 오프셋과 추정 토큰 수를 병렬 배열로 유지)
+     */
+    private static final class Units {
+
+        int[] start = new int[32];
+        int[] end = new int[32];
+        int[] tokens = new int[32];
+        int size;
+
+        void add(int from, int to, int tokenCount) {
+            if (size == start.length) {
+                start = Arrays.copyOf(start, size * 2);
+                end = Arrays.copyOf(end, size * 2);
+                tokens = Arrays.copyOf(tokens, size * 2);
+            }
+            start[size] = from;
+            end[size] = to;
+            tokens[size] = tokenCount;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.drugapproval.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 텍스트 청크 분할 엔진
+ * 문서마다 세션을 열어 페이지를 순서대로 넣으면 완성된 청크를 돌려준다.
+ * (세션은 페이지 경계를 넘는 문장을 다음 페이지와 이어 붙일 수 있도록 상태를 가진다)
+ */
+public interface TextChunker {
+
+    /**
+     * 문서 하나에 대한 분할 세션 시작
+     */
+    Session open();
+
+    /**
+     * 페이지 목록 전체를 분할
+     */
+    default List<PdfProcessor.TextChunk> split(List<PdfProcessor.PageContent> pages) {
+        Session session = open();
+        List<PdfProcessor.TextChunk> chunks = new ArrayList<>();
+        for (PdfProcessor.PageContent page : pages) {
+            chunks.addAll(session.addPage(page));
+        }
+        chunks.addAll(session.finish());
+        return chunks;
+    }
+
+    /**
+     * 문서 단위 분할 세션 (단일 스레드에서 사용)
+     */
+    interface Session {
+
+        /**
+         * 페이지 추가
+         * @return 이 페이지까지 완성된 청크
+         */
+        List<PdfProcessor.TextChunk> addPage(PdfProcessor.PageContent page);
+
+        /**
+         * 남은 청크 반환
+         */
+        List<PdfProcessor.TextChunk> finish();
+    }
+}
@@ -0,0 +1,47 @@
+package com.drugapproval.util;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * 원본 문자열의 일부 구간을 복사 없이 가리키는 텍스트 뷰
+ * 청크와 중복(overlap) 구간이 같은 페이지 버퍼를 공유하며, 문자열은 toString() 시점에만 생성된다.
+ */
+public final class TextSpan implements CharSequence {
+
+    private final String source;
+    private final int start;
+    private final int end;
+
+    public TextSpan(String source, int start, int end) {
+        if (start < 0 || end > source.length() || start > end) {
+            throw new IndexOutOfBoundsException("Invalid span [" + start + ", " + end + ") of " + source.length());
+        }
+        this.source = source;
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    public int length() {
+        return end - start;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length()) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return source.charAt(start + index);
+    }
+
+    @Override
+    public CharSequence subSequence(int from, int to) {
+        return new TextSpan(source, start + from, start + to);
+    }
+
+    @Override
+    @JsonValue
+    public String toString() {
+        return source.substring(start, end);
+    }
+}
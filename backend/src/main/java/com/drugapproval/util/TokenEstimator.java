@@ -0,0 +1,63 @@
+package com.drugapproval.util;
+
+/**
+ * 토크나이저 없이 문자 종류별 가중치로 토큰 수를 추정
+ * (영문/숫자는 약 4자당 1토큰, 한글/한자는 약 1자당 1토큰, 기호는 약 2자당 1토큰)
+ */
+public final class TokenEstimator {
+
+    /** 가중치 단위 (1토큰 = 4) */
+    static final int UNITS_PER_TOKEN = 4;
+
+    private TokenEstimator() {
+    }
+
+    /**
+     * 구간 [from, to)의 추정 토큰 수
+     */
+    public static int estimate(CharSequence text, int from, int to) {
+        int units = 0;
+        for (int i = from; i < to; i++) {
+            units += weight(text.charAt(i));
+        }
+        return (units + UNITS_PER_TOKEN - 1) / UNITS_PER_TOKEN;
+    }
+
+    public static int estimate(CharSequence text) {
+        return estimate(text, 0, text.length());
+    }
+
+    /**
+     * 추정 토큰 수가 maxTokens 이내인 가장 긴 앞부분의 길이
+     */
+    public static int prefixLength(CharSequence text, int maxTokens) {
+        int budget = maxTokens * UNITS_PER_TOKEN;
+        int units = 0;
+        for (int i = 0; i < text.length(); i++) {
+            units += weight(text.charAt(i));
+            if (units > budget) {
+                return i;
+            }
+        }
+        return text.length();
+    }
+
+    /**
+     * 문자 하나의 가중치 (1토큰 = 4)
+     */
+    static int weight(char c) {
+        if (c < 0x80) {
+            if (Character.isLetterOrDigit(c)) {
+                return 1;
+            }
+            if (c == '\n') {
+                return 1;
+            }
+            return Character.isWhitespace(c) ? 0 : 2;
+        }
+        if ((c >= 0xAC00 && c <= 0xD7A3) || (c >= 0x4E00 && c <= 0x9FFF) || (c >= 0x3130 && c <= 0x318F)) {
+            return 4;
+        }
+        return Character.isWhitespace(c) ? 0 : 2;
+    }
+}
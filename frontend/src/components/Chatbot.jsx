@@ -188,26 +188,41 @@ const Chatbot = () => {
     setInput('');
     setLoading(true);
 
+    const botMessageId = Date.now() + 1;
+    const updateBotMessage = (update) => {
+      setMessages(prev => prev.map(message =>
+        message.id === botMessageId ? { ...message, ...update(message) } : message
+      ));
+    };
+
     try {
-      const response = await queryAPI.ask({
+      // 토큰이 도착하는 대로 답변 말풍선에 이어 붙임
+      await queryAPI.askStream({
         question: input,
         promptType: promptType,
         userName: '홍길동',
         userDepartment: '의약품안전국',
+      }, {
+        onToken: (token) => {
+          setLoading(false);
+          setMessages(prev => prev.some(message => message.id === botMessageId)
+            ? prev.map(message =>
+                message.id === botMessageId ? { ...message, text: message.text + token } : message)
+            : [...prev, {
+                id: botMessageId,
+                text: token,
+                isUser: false,
+                timestamp: new Date().toLocaleTimeString('ko-KR'),
+              }]);
+        },
+        onDone: () => {
+          updateBotMessage(() => ({ timestamp: new Date().toLocaleTimeString('ko-KR') }));
+        },
       });
-
-      const botMessage = {
-        id: Date.now() + 1,
-        text: response.data.answer,
-        isUser: false,
-        timestamp: new Date().toLocaleTimeString('ko-KR'),
-      };
-
-      setMessages(prev => [...prev, botMessage]);
     } catch (error) {
       console.error('Error sending query:', error);
       const errorMessage = {
-        id: Date.now() + 1,
+        id: Date.now() + 2,
         text: '죄송합니다. 응답을 생성하는 중 오류가 발생했습니다.',
         isUser: false,
         timestamp: new Date().toLocaleTimeString('ko-KR'),
@@ -94,7 +94,10 @@ const StatusBadge = styled.span`
   background: ${props => {
     switch (props.status) {
       case 'COMPLETED': return '#d4edda';
-      case 'PROCESSING': return '#fff3cd';
+      case 'PROCESSING':
+      case 'EXTRACTING':
+      case 'EMBEDDING':
+      case 'INDEXING': return '#fff3cd';
       case 'FAILED': return '#f8d7da';
       default: return '#e2e3e5';
     }
@@ -102,7 +105,10 @@ const StatusBadge = styled.span`
   color: ${props => {
     switch (props.status) {
       case 'COMPLETED': return '#155724';
-      case 'PROCESSING': return '#856404';
+      case 'PROCESSING':
+      case 'EXTRACTING':
+      case 'EMBEDDING':
+      case 'INDEXING': return '#856404';
       case 'FAILED': return '#721c24';
       default: return '#383d41';
     }
@@ -173,6 +179,9 @@ const DocumentList = ({ onDocumentSelect }) => {
     const labels = {
       'UPLOADING': '업로드중',
       'PROCESSING': '처리중',
+      'EXTRACTING': '텍스트 추출중',
+      'EMBEDDING': '벡터 저장중',
+      'INDEXING': '검색 인덱싱중',
       'COMPLETED': '완료',
       'FAILED': '실패',
     };
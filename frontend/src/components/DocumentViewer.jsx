@@ -158,7 +158,7 @@ const DocumentViewer = ({ document }) => {
     if (document) {
       // In a real implementation, you would load the PDF here
       // For now, we'll just show a placeholder
-      setPdfUrl(`/api/documents/${document.id}/download`);
+      setPdfUrl(`/api/documents/${document.id}/download?inline=true`);
     }
   }, [document]);
 
@@ -44,12 +44,64 @@ export const documentAPI = {
   },
 };
 
+// SSE 이벤트 블록 파싱 ("event:" / "data:" 줄)
+const parseSseEvent = (raw) => {
+  let event = 'message';
+  const data = [];
+  raw.split('\n').forEach((line) => {
+    if (line.startsWith('event:')) {
+      event = line.slice(6).trim();
+    } else if (line.startsWith('data:')) {
+      data.push(line.slice(5).replace(/^ /, ''));
+    }
+  });
+  return { event, data: data.length ? JSON.parse(data.join('\n')) : null };
+};
+
 // Query APIs
 export const queryAPI = {
   ask: (data) => {
     return api.post('/queries', data);
   },
 
+  // 스트리밍 질문: sources → token... → done (또는 error) 이벤트를 핸들러로 전달
+  askStream: async (data, handlers = {}, signal) => {
+    const response = await fetch(`${API_BASE_URL}/queries/stream`, {
+      method: 'POST',
+      headers: {
+        'Content-Type': 'application/json',
+        Accept: 'text/event-stream',
+      },
+      body: JSON.stringify(data),
+      signal,
+    });
+
+    if (!response.ok || !response.body) {
+      throw new Error(`Streaming request failed: ${response.status}`);
+    }
+
+    const reader = response.body.getReader();
+    const decoder = new TextDecoder();
+    let buffer = '';
+
+    for (;;) {
+      const { done, value } = await reader.read();
+      if (done) break;
+      buffer += decoder.decode(value, { stream: true }).replace(/\r\n/g, '\n');
+
+      let boundary;
+      while ((boundary = buffer.indexOf('\n\n')) >= 0) {
+        const { event, data: payload } = parseSseEvent(buffer.slice(0, boundary));
+        buffer = buffer.slice(boundary + 2);
+
+        if (event === 'sources') handlers.onSources?.(payload);
+        else if (event === 'token') handlers.onToken?.(payload.content);
+        else if (event === 'done') handlers.onDone?.(payload);
+        else if (event === 'error') throw new Error(payload?.message || 'Streaming error');
+      }
+    }
+  },
+
   getHistory: (params) => {
     return api.get('/queries/history', { params });
   },